@@ -0,0 +1,39 @@
+import bench.Workload;
+
+public class ClipSwitchWorkload implements Workload {
+    private AnimationClip[] clips;
+    private String[] paths;
+    private int[][] sizes;
+    private boolean byPath;
+    private Sprite sprite;
+    private int next = 0;
+
+    @Override
+    public void setUp(String switchBy) {
+        ClipInfo[] infos = WitchClips.load();
+        AnimationRegistry registry = new AnimationRegistry();
+        int[] ids = {WitchClips.IDLE, WitchClips.RUN, WitchClips.ATTACK};
+        clips = new AnimationClip[ids.length];
+        paths = new String[ids.length];
+        sizes = new int[ids.length][];
+        for (int i = 0; i < ids.length; i++) {
+            ClipInfo info = infos[ids[i]];
+            clips[i] = registry.get(registry.load(info));
+            paths[i] = info.getImagePath();
+            sizes[i] = new int[] {info.getFrameWidth(), info.getFrameHeight()};
+        }
+        byPath = "path".equals(switchBy);
+        sprite = new Sprite(clips[0], 0, 0, WitchClips.SCALE);
+    }
+
+    @Override
+    public Object run() {
+        next = (next + 1) % clips.length;
+        if (byPath) {
+            sprite.setSpriteSheet(paths[next], sizes[next][0], sizes[next][1], true);
+        } else {
+            sprite.setAnimation(clips[next]);
+        }
+        return sprite;
+    }
+}
@@ -0,0 +1,47 @@
+import bench.Workload;
+
+import java.util.Random;
+
+public class CollisionWorkload implements Workload {
+    private World world;
+    private int[] xs, ys;
+    private int[] velocityXs, velocityYs;
+    private int next = 0;
+
+    @Override
+    public void setUp(String platformCount) {
+        int count = Integer.parseInt(platformCount);
+        int worldWidth = GeneratedLevel.worldWidth(count);
+        world = new World(WitchClips.load(), WitchClips.SCALE, worldWidth, 1080, 0, 0);
+        world.addPlatforms(GeneratedLevel.create(count));
+
+        // Player positions and moves are precomputed so the benchmark measures only the collision pass.
+        // handleCollisions() sweeps the player's velocity, so every sample moves: mostly walking, jumping and
+        // falling as in play, plus long drops over MAX_SWEEP (64 px) that take the sub-stepped path.
+        Random random = new Random(7);
+        xs = new int[4096];
+        ys = new int[4096];
+        velocityXs = new int[4096];
+        velocityYs = new int[4096];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = random.nextInt(worldWidth);
+            ys[i] = random.nextInt(1080);
+            velocityXs[i] = random.nextInt(3) * 5 - 5; // Left, still or right, at walking speed
+            switch (random.nextInt(4)) {
+                case 0: velocityYs[i] = -25 + random.nextInt(26); break; // Rising from a jump
+                case 1: velocityYs[i] = random.nextInt(41); break; // Falling, up to a long fall's speed
+                case 2: velocityYs[i] = 65 + random.nextInt(256); break; // Fast drop, swept in 2-6 steps
+                default: velocityYs[i] = 1; break; // Standing: gravity pulls it onto what it stands on
+            }
+        }
+    }
+
+    @Override
+    public Object run() {
+        next = (next + 1) & (xs.length - 1);
+        world.setPlayerPosition(xs[next], ys[next]);
+        world.setPlayerVelocity(velocityXs[next], velocityYs[next]);
+        world.handleCollisions();
+        return world.getPlayerX();
+    }
+}
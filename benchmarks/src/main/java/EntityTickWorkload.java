@@ -0,0 +1,19 @@
+import bench.Workload;
+
+public class EntityTickWorkload implements Workload {
+    private World world;
+    private final InputSnapshot input = new InputSnapshot();
+
+    @Override
+    public void setUp(String entityCount) {
+        world = new World(WitchClips.load(), WitchClips.SCALE, GeneratedLevel.worldWidth(1000), 1080, 1700, 600);
+        world.addPlatforms(GeneratedLevel.create(1000));
+        world.spawnWalkers(Integer.parseInt(entityCount));
+    }
+
+    @Override
+    public Object run() {
+        world.tick(input); // Player stands still, the walkers do the work
+        return world.getEntities().getX(0);
+    }
+}
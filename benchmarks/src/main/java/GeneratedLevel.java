@@ -0,0 +1,27 @@
+import java.util.ArrayList;
+import java.util.Random;
+
+// Random but reproducible levels for the benchmarks, with roughly the density of Level1.json
+public class GeneratedLevel {
+    public static ArrayList<Platform> create(int count) {
+        Random random = new Random(42);
+        int worldWidth = Math.max(1920, count * 200);
+        ArrayList<Platform> platforms = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            platforms.add(new Platform(
+                    random.nextInt(worldWidth),
+                    200 + random.nextInt(860),
+                    40 + random.nextInt(600),
+                    random.nextInt(4) == 0 ? 200 : 20,
+                    false,
+                    random.nextBoolean(),
+                    random.nextInt(5) == 0,
+                    random.nextInt(5) == 0));
+        }
+        return platforms;
+    }
+
+    public static int worldWidth(int count) {
+        return Math.max(1920, count * 200);
+    }
+}
@@ -0,0 +1,59 @@
+import bench.Workload;
+
+import java.io.File;
+
+public class LevelLoadWorkload implements Workload {
+    private String path;
+    private boolean binary;
+
+    // parameter: "<level.json or platform count>:<json|binary>"
+    @Override
+    public void setUp(String parameter) throws Exception {
+        String[] parts = parameter.split(":");
+        String level = parts[0];
+        binary = "binary".equals(parts[1]);
+
+        String json = level;
+        if (!level.endsWith(".json")) {
+            // Generate a level of that many platforms as JSON, the way a designer's tool would
+            File file = File.createTempFile("level", ".json");
+            file.deleteOnExit();
+            StringBuilder out = new StringBuilder("[");
+            for (Platform platform : GeneratedLevel.create(Integer.parseInt(level))) {
+                if (out.length() > 1) {
+                    out.append(",\n");
+                }
+                out.append("{\"x\":").append(platform.getX())
+                        .append(",\"y\":").append(platform.getY())
+                        .append(",\"width\":").append(platform.getWidth())
+                        .append(",\"height\":").append(platform.getHeight())
+                        .append(",\"isObstacle\":").append(platform.isObstacle())
+                        .append(",\"visible\":").append(platform.isVisible())
+                        .append(",\"hasLeftWall\":").append(platform.hasLeftWall())
+                        .append(",\"hasRightWall\":").append(platform.hasRightWall())
+                        .append('}');
+            }
+            out.append("]");
+            java.nio.file.Files.writeString(file.toPath(), out);
+            json = file.getPath();
+        }
+
+        if (binary) {
+            File compiled = File.createTempFile("level", ".wlvl");
+            compiled.deleteOnExit();
+            LevelIO.writeBinary(LevelIO.loadJson(json), compiled.getPath());
+            path = compiled.getPath();
+        } else {
+            path = json;
+        }
+    }
+
+    @Override
+    public Object run() {
+        try {
+            return binary ? LevelIO.loadBinary(path) : LevelIO.loadJson(path);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
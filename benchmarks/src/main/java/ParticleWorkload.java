@@ -0,0 +1,25 @@
+import bench.Workload;
+
+// Keeps the particle pool topped up to the requested count on Level1 and ticks it
+public class ParticleWorkload implements Workload {
+    private ParticleSystem particles;
+    private final PlatformGrid grid = new PlatformGrid(256);
+    private final PlatformGrid.Query query = new PlatformGrid.Query();
+    private int target;
+
+    @Override
+    public void setUp(String count) throws Exception {
+        target = Integer.parseInt(count);
+        particles = new ParticleSystem(World.MAX_PARTICLES);
+        for (Platform platform : LevelIO.load("Level1.json")) {
+            grid.add(platform);
+        }
+    }
+
+    @Override
+    public Object run() {
+        particles.burst(ParticleSystem.SPARK, 900, 500, target - particles.size(), 14f, 180);
+        particles.tick(grid, query, 1920, 1080);
+        return particles.size();
+    }
+}
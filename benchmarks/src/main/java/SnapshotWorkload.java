@@ -0,0 +1,53 @@
+import bench.Workload;
+
+// Snapshot ring on a Level1 world with walkers and sparks. Two copies of the world one tick apart take turns,
+// so every capture stores a real one-tick change. "capture:<walkers>:<particles>" measures a capture (a delta,
+// or a keyframe every KEYFRAME_INTERVAL ticks); "rewind:<walkers>:<particles>" a rewind (decode and restore)
+// plus the capture that puts the newest tick back.
+public class SnapshotWorkload implements Workload {
+    private World before, after;
+    private SnapshotRing ring;
+    private boolean rewind;
+    private int next = 0;
+
+    @Override
+    public void setUp(String param) throws Exception {
+        String[] parts = param.split(":");
+        rewind = parts[0].equals("rewind");
+        int walkers = Integer.parseInt(parts[1]);
+        int sparks = Integer.parseInt(parts[2]);
+        before = createWorld(walkers, sparks);
+        after = createWorld(walkers, sparks);
+
+        // Let the walkers land and the sparks spread out, then move the second world one tick further
+        InputSnapshot input = new InputSnapshot();
+        for (int t = 0; t < 30; t++) {
+            before.tick(input);
+            after.tick(input);
+        }
+        after.tick(input);
+
+        ring = new SnapshotRing(64 << 20, 600);
+        ring.capture(before);
+        ring.capture(after);
+    }
+
+    private static World createWorld(int walkers, int sparks) throws Exception {
+        World world = new World(WitchClips.load(), WitchClips.SCALE, 1920, 1080, 1700, 600);
+        world.addPlatforms(LevelIO.load("Level1.json"));
+        world.spawnWalkers(walkers);
+        world.getParticles().burst(ParticleSystem.SPARK, 960, 300, sparks, 14f, 600); // Still alive after setup
+        return world;
+    }
+
+    @Override
+    public Object run() {
+        if (rewind) {
+            ring.rewind(before); // Drops the newest tick, restores the one before
+            ring.capture(after);
+        } else {
+            ring.capture((next++ & 1) == 0 ? before : after);
+        }
+        return ring.size();
+    }
+}
@@ -0,0 +1,31 @@
+import bench.Workload;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+public class SpriteDrawWorkload implements Workload {
+    private Sprite sprite;
+    private BufferedImage target;
+    private Graphics2D g2d;
+    private int frame = 0;
+
+    @Override
+    public void setUp(String flipped) {
+        ClipInfo[] clips = WitchClips.load();
+        AnimationRegistry registry = new AnimationRegistry();
+        AnimationClip attack = registry.get(registry.load(clips[WitchClips.ATTACK]));
+
+        sprite = new Sprite(attack, 400, 300, WitchClips.SCALE);
+        sprite.setFlipHorizontal(Boolean.parseBoolean(flipped));
+        target = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_ARGB);
+        g2d = target.createGraphics();
+    }
+
+    @Override
+    public Object run() {
+        frame = (frame + 1) % sprite.getTotalFrames();
+        sprite.setCurrentFrame(frame);
+        sprite.draw(g2d);
+        return target;
+    }
+}
@@ -0,0 +1,23 @@
+import bench.Workload;
+
+public class WorldTickWorkload implements Workload {
+    private World world;
+    private final InputSnapshot input = new InputSnapshot();
+    private int ticks = 0;
+
+    @Override
+    public void setUp(String platformCount) {
+        int count = Integer.parseInt(platformCount);
+        world = new World(WitchClips.load(), WitchClips.SCALE, GeneratedLevel.worldWidth(count), 1080, 1700, 600);
+        world.addPlatforms(GeneratedLevel.create(count));
+    }
+
+    @Override
+    public Object run() {
+        // Run right, jumping now and then
+        ticks++;
+        input.set(InputSnapshot.RIGHT, (ticks & 63) == 0 ? InputSnapshot.JUMP : 0, 0);
+        world.tick(input);
+        return world.getPlayerY();
+    }
+}
@@ -0,0 +1,39 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClipSwitchBenchmark {
+    @Param({"handle", "path"})
+    public String switchBy;
+
+    private Workload clipSwitch;
+
+    @Setup
+    public void setUp() throws Exception {
+        clipSwitch = Workload.create("ClipSwitchWorkload", switchBy);
+    }
+
+    // Switching idle -> run -> attack, by registry handle or through the path based setSpriteSheet
+    @Benchmark
+    public Object switchClip() {
+        return clipSwitch.run();
+    }
+}
@@ -0,0 +1,47 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    @Param({"10", "1000", "10000", "100000"})
+    public String platforms;
+
+    private Workload collisions;
+    private Workload tick;
+
+    @Setup
+    public void setUp() throws Exception {
+        collisions = Workload.create("CollisionWorkload", platforms);
+        tick = Workload.create("WorldTickWorkload", platforms);
+    }
+
+    // World.handleCollisions (formerly Game.handleCollisions) with the player at a new spot and moving every call
+    @Benchmark
+    public Object handleCollisions() {
+        return collisions.run();
+    }
+
+    // A whole simulation tick: input, animation, gravity, movement and collision
+    @Benchmark
+    public Object worldTick() {
+        return tick.run();
+    }
+}
@@ -0,0 +1,39 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EntityBenchmark {
+    @Param({"1000", "5000", "20000"})
+    public String entities;
+
+    private Workload tick;
+
+    @Setup
+    public void setUp() throws Exception {
+        tick = Workload.create("EntityTickWorkload", entities);
+    }
+
+    // One world tick with the walkers on a 1000 platform level: animation, movement and collision over the entity arrays
+    @Benchmark
+    public Object entityTick() {
+        return tick.run();
+    }
+}
@@ -0,0 +1,42 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LevelLoadBenchmark {
+    // "Level1.json" is the shipped level; the numbers are generated levels of that many platforms
+    @Param({"Level1.json", "10000"})
+    public String level;
+
+    @Param({"json", "binary"})
+    public String format;
+
+    private Workload load;
+
+    @Setup
+    public void setUp() throws Exception {
+        load = Workload.create("LevelLoadWorkload", level + ":" + format);
+    }
+
+    @Benchmark
+    public Object load() {
+        return load.run();
+    }
+}
@@ -0,0 +1,50 @@
+package bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+    @Param({"0", "1000", "5000"})
+    public String walkers;
+
+    @Param({"0", "13000"})
+    public String particles; // Left out of the rewind history, so they should cost next to nothing
+
+    private Workload capture;
+    private Workload rewind;
+
+    @Setup
+    public void setUp() throws Exception {
+        capture = Workload.create("SnapshotWorkload", "capture:" + walkers + ":" + particles);
+        rewind = Workload.create("SnapshotWorkload", "rewind:" + walkers + ":" + particles);
+    }
+
+    // Stores one tick of world state in the off-heap ring
+    @Benchmark
+    public Object capture() {
+        return capture.run();
+    }
+
+    // Restores the previous tick from the ring, then captures the newest one again
+    @Benchmark
+    public Object rewindAndCapture() {
+        return rewind.run();
+    }
+}
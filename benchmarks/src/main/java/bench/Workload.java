@@ -0,0 +1,16 @@
+package bench;
+
+// The game classes live in the default package, which JMH benchmarks (and any named package) can't
+// reference directly. Each workload is a default package class implementing this interface; the
+// benchmark classes load it by name and call it through the interface.
+public interface Workload {
+    void setUp(String parameter) throws Exception;
+
+    Object run();
+
+    static Workload create(String className, String parameter) throws Exception {
+        Workload workload = (Workload) Class.forName(className).getDeclaredConstructor().newInstance();
+        workload.setUp(parameter);
+        return workload;
+    }
+}
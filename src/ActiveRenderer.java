@@ -0,0 +1,85 @@
+import javax.swing.JFrame;
+import java.awt.AWTException;
+import java.awt.BufferCapabilities;
+import java.awt.Canvas;
+import java.awt.Graphics;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.awt.ImageCapabilities;
+import java.awt.Toolkit;
+import java.awt.event.KeyListener;
+import java.awt.image.BufferStrategy;
+import java.util.function.Consumer;
+
+// Renders straight from the game loop into a Canvas BufferStrategy instead of waiting for Swing to repaint
+public class ActiveRenderer {
+    private final Canvas canvas = new Canvas();
+    private final int numBuffers; // 2 = double buffering, 3 = triple buffering
+    private BufferStrategy strategy;
+
+    public ActiveRenderer(int numBuffers) {
+        this.numBuffers = numBuffers;
+        canvas.setIgnoreRepaint(true); // We paint ourselves, don't let AWT schedule paints
+        canvas.setFocusable(true);
+        canvas.setFocusTraversalKeysEnabled(false);
+    }
+
+    public void attach(JFrame frame, KeyListener keyListener) {
+        frame.setIgnoreRepaint(true);
+        frame.add(canvas);
+        canvas.addKeyListener(keyListener);
+    }
+
+    // Switches to fullscreen exclusive mode if the screen supports it, otherwise maximizes the frame
+    public void enterFullscreen(JFrame frame) {
+        GraphicsDevice device = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
+        if (device.isFullScreenSupported()) {
+            device.setFullScreenWindow(frame); // Released when the JVM exits (the frame exits on close)
+        } else {
+            frame.setExtendedState(JFrame.MAXIMIZED_BOTH);
+        }
+    }
+
+    // Must be called once the canvas is displayable (after the frame is visible)
+    public void createBufferStrategy() {
+        try {
+            // Ask for accelerated buffers with page flipping; only granted in fullscreen exclusive mode on most drivers
+            BufferCapabilities flipping = new BufferCapabilities(new ImageCapabilities(true), new ImageCapabilities(true),
+                    BufferCapabilities.FlipContents.UNDEFINED);
+            canvas.createBufferStrategy(numBuffers, flipping);
+        } catch (AWTException e) {
+            canvas.createBufferStrategy(numBuffers); // Let AWT pick the best strategy it has (blitting)
+        }
+        strategy = canvas.getBufferStrategy();
+        canvas.requestFocus();
+        System.out.println("Active rendering: " + numBuffers + " buffers, page flipping "
+                + (strategy.getCapabilities().isPageFlipping() ? "on" : "off"));
+    }
+
+    public void renderFrame(Consumer<Graphics> scene) {
+        if (strategy == null) {
+            return;
+        }
+        // Redraw until the frame made it to the screen intact (buffers can be lost, e.g. on display mode changes)
+        do {
+            do {
+                Graphics g = strategy.getDrawGraphics();
+                try {
+                    scene.accept(g);
+                } finally {
+                    g.dispose();
+                }
+            } while (strategy.contentsRestored());
+            strategy.show();
+        } while (strategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync(); // Flush the pipeline so the frame is presented now (matters on Linux)
+    }
+
+    public int getWidth() {
+        return canvas.getWidth();
+    }
+
+    public int getHeight() {
+        return canvas.getHeight();
+    }
+}
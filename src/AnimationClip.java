@@ -0,0 +1,109 @@
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+public class AnimationClip {
+    private final String name; // Name used to look the clip up in the registry
+    private final BufferedImage spriteSheet; // The decoded sprite sheet
+    private final int frameWidth, frameHeight; // Dimensions of each frame
+    private final boolean isVertical; // Indicates if the frames are stacked vertically
+    private final int totalFrames; // Total number of frames in the sprite sheet
+
+    // Pre-sliced frames by scale factor, each [0] = normal, [1] = flipped horizontally. Replaced (never changed)
+    // when a scale is added, so reading it needs no lock.
+    private volatile BufferedImage[][][] scaledFrames = new BufferedImage[0][][];
+
+    public AnimationClip(String name, BufferedImage spriteSheet, int frameWidth, int frameHeight, boolean isVertical) {
+        this.name = name;
+        this.spriteSheet = spriteSheet;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        this.isVertical = isVertical;
+
+        // Calculate the total number of frames once, when the sheet is loaded
+        if (isVertical) {
+            this.totalFrames = spriteSheet.getHeight() / frameHeight; // Vertical layout
+        } else {
+            this.totalFrames = spriteSheet.getWidth() / frameWidth; // Horizontal layout
+        }
+    }
+
+    public int getFrameX(int frameIndex) {
+        return isVertical ? 0 : frameIndex * frameWidth; // X-coordinate of a frame in the sheet
+    }
+
+    public int getFrameY(int frameIndex) {
+        return isVertical ? frameIndex * frameHeight : 0; // Y-coordinate of a frame in the sheet
+    }
+
+    // Returns the frames sliced out of the sheet and scaled by scaleFactor. The first call for a scale builds
+    // them (call it at load time); after that this is two array reads, with no lock and no allocation.
+    public BufferedImage[][] getScaledFrames(int scaleFactor) {
+        BufferedImage[][][] byScale = scaledFrames;
+        if (scaleFactor < byScale.length && byScale[scaleFactor] != null) {
+            return byScale[scaleFactor];
+        }
+        return buildAndKeep(scaleFactor);
+    }
+
+    private synchronized BufferedImage[][] buildAndKeep(int scaleFactor) {
+        BufferedImage[][][] byScale = scaledFrames;
+        if (scaleFactor < byScale.length && byScale[scaleFactor] != null) {
+            return byScale[scaleFactor]; // Another thread built them while we waited
+        }
+        BufferedImage[][] frames = buildScaledFrames(scaleFactor);
+        byScale = Arrays.copyOf(byScale, Math.max(byScale.length, scaleFactor + 1));
+        byScale[scaleFactor] = frames;
+        scaledFrames = byScale;
+        return frames;
+    }
+
+    private BufferedImage[][] buildScaledFrames(int scaleFactor) {
+        int width = frameWidth * scaleFactor;
+        int height = frameHeight * scaleFactor;
+        BufferedImage[][] frames = new BufferedImage[2][totalFrames];
+
+        for (int i = 0; i < totalFrames; i++) {
+            int sx = getFrameX(i);
+            int sy = getFrameY(i);
+            for (int flip = 0; flip < 2; flip++) {
+                BufferedImage frame = CompatibleImages.create(width, height, Transparency.TRANSLUCENT);
+                Graphics2D g2d = frame.createGraphics();
+                if (flip == 0) {
+                    g2d.drawImage(spriteSheet, 0, 0, width, height, sx, sy, sx + frameWidth, sy + frameHeight, null);
+                } else {
+                    // Swapping the destination x coordinates mirrors the frame
+                    g2d.drawImage(spriteSheet, width, 0, 0, height, sx, sy, sx + frameWidth, sy + frameHeight, null);
+                }
+                g2d.dispose();
+                frames[flip][i] = frame;
+            }
+        }
+        return frames;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public BufferedImage getSpriteSheet() {
+        return spriteSheet;
+    }
+
+    public int getFrameWidth() {
+        return frameWidth;
+    }
+
+    public int getFrameHeight() {
+        return frameHeight;
+    }
+
+    public boolean isVertical() {
+        return isVertical;
+    }
+
+    public int getTotalFrames() {
+        return totalFrames;
+    }
+}
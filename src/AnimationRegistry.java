@@ -0,0 +1,72 @@
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public class AnimationRegistry {
+    private static final AnimationRegistry shared = new AnimationRegistry(); // Registry used by the path based Sprite API
+
+    private final ArrayList<AnimationClip> clips = new ArrayList<>(); // Clips indexed by handle
+    private final HashMap<String, Integer> handlesByName = new HashMap<>(); // Clip name -> handle
+    private final HashMap<String, BufferedImage> sheetsByPath = new HashMap<>(); // Each sheet is decoded only once
+
+    public static AnimationRegistry shared() {
+        return shared;
+    }
+
+    // Decodes the sheet (if it hasn't been decoded yet) and registers it as a clip. Returns the clip handle.
+    public synchronized int load(String name, String imagePath, int frameWidth, int frameHeight, boolean isVertical) {
+        Integer existing = handlesByName.get(name);
+        if (existing != null) {
+            return existing; // Already registered
+        }
+
+        BufferedImage sheet = sheetsByPath.get(imagePath);
+        if (sheet == null) {
+            try {
+                sheet = ImageIO.read(new File(imagePath)); // The only place a sprite sheet gets decoded
+            } catch (IOException e) {
+                System.err.println("Error loading sprite sheet: " + imagePath);
+                e.printStackTrace();
+                return -1;
+            }
+            sheetsByPath.put(imagePath, sheet);
+        }
+
+        clips.add(new AnimationClip(name, sheet, frameWidth, frameHeight, isVertical));
+        int handle = clips.size() - 1;
+        handlesByName.put(name, handle);
+        return handle;
+    }
+
+    // Registers a clip whose sheet was decoded elsewhere (e.g. by the AssetManager). Returns the clip handle.
+    public synchronized int add(AnimationClip clip) {
+        Integer existing = handlesByName.get(clip.getName());
+        if (existing != null) {
+            return existing;
+        }
+        clips.add(clip);
+        int handle = clips.size() - 1;
+        handlesByName.put(clip.getName(), handle);
+        return handle;
+    }
+
+    public int load(ClipInfo info) {
+        return load(info.getName(), info.getImagePath(), info.getFrameWidth(), info.getFrameHeight(), info.isVertical());
+    }
+
+    public AnimationClip get(int handle) {
+        return clips.get(handle); // No I/O, no allocation
+    }
+
+    public int handleOf(String name) {
+        Integer handle = handlesByName.get(name);
+        return handle != null ? handle : -1;
+    }
+
+    public int size() {
+        return clips.size();
+    }
+}
@@ -0,0 +1,109 @@
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Loads assets concurrently, one virtual thread per asset. An asset starts as soon as the assets it
+// depends on are in, so independent files decode in parallel while dependent steps (scaling, packing)
+// wait only for what they need. Progress can be polled from any thread, e.g. to draw a loading screen.
+public class AssetManager {
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger finished = new AtomicInteger(); // Loaded or failed
+    private final AtomicInteger failed = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+    private volatile long finishNanos = 0;
+    private volatile String lastFinished = ""; // Name of the most recently finished asset, for status text
+
+    public static class Asset<T> {
+        private final String name;
+        private final CompletableFuture<T> future;
+
+        private Asset(String name, CompletableFuture<T> future) {
+            this.name = name;
+            this.future = future;
+        }
+
+        // Waits for the asset. Returns null if it (or one of its dependencies) failed; the error has been printed.
+        public T get() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                return null;
+            }
+        }
+
+        public boolean isDone() {
+            return future.isDone();
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    public <T> Asset<T> load(String name, Callable<T> loader, Asset<?>... dependencies) {
+        total.incrementAndGet();
+        CompletableFuture<?>[] waitFor = new CompletableFuture<?>[dependencies.length];
+        for (int i = 0; i < dependencies.length; i++) {
+            waitFor[i] = dependencies[i].future;
+        }
+        CompletableFuture<T> future = CompletableFuture.allOf(waitFor).thenApplyAsync(ignored -> {
+            try {
+                return loader.call();
+            } catch (Exception e) {
+                System.err.println("Error loading asset: " + name);
+                e.printStackTrace();
+                throw new CompletionException(e);
+            }
+        }, executor);
+        future.whenComplete((value, error) -> {
+            if (error != null) {
+                failed.incrementAndGet(); // Failed itself, or skipped because a dependency failed
+            }
+            lastFinished = name;
+            if (finished.incrementAndGet() == total.get()) {
+                finishNanos = System.nanoTime();
+            }
+        });
+        return new Asset<>(name, future);
+    }
+
+    // Fraction of the submitted assets that are done, 0..1
+    public double getProgress() {
+        int count = total.get();
+        return count == 0 ? 1 : finished.get() / (double) count;
+    }
+
+    public boolean isDone() {
+        return finished.get() == total.get();
+    }
+
+    public int getTotal() {
+        return total.get();
+    }
+
+    public int getFinished() {
+        return finished.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public String getLastFinished() {
+        return lastFinished;
+    }
+
+    // Time from creating the manager until the last asset finished (or until now, while loading)
+    public long getElapsedNanos() {
+        long end = finishNanos;
+        return (end != 0 && isDone() ? end : System.nanoTime()) - startNanos;
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,315 @@
+import javax.imageio.ImageIO;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Streams a chunked level (see LevelCompiler --chunks) around the camera. Chunks are read, decoded and
+// pre-drawn on a background thread; the game thread only picks up finished chunks at the start of a tick,
+// so gameplay never waits on disk. Chunks far behind the camera are evicted, least recently used first,
+// once the resident chunks go over the memory budget.
+//
+// A platform that spans several chunks is stored once per chunk (owned by the one holding its left edge,
+// borrowed by the others). It collides while any of those chunks is resident, and joins the World only
+// once however many of them are: resident platforms are counted by their source record (LevelIO.sourceOf),
+// so identical platforms that are separate in the level file stay separate.
+//
+// Directory layout: chunks.txt (chunkWidth, chunkHeight, chunkCount), chunk_<n>.wlvl and optional chunk_<n>.png
+public class ChunkStreamer {
+    public interface Listener {
+        void platformsAdded(List<Platform> platforms); // Add these to the live level
+        void platformsRemoved(List<Platform> platforms); // Remove them again
+    }
+
+    // A platform in the live level, and how many resident chunks (owned or borrowed copies) hold it
+    private static class Resident {
+        private final Platform platform;
+        private int chunks = 1;
+
+        Resident(Platform platform) {
+            this.platform = platform;
+        }
+    }
+
+    // A load the loader thread finished; chunk is null if it failed
+    private static class Loaded {
+        private final int index;
+        private final LevelChunk chunk;
+
+        Loaded(int index, LevelChunk chunk) {
+            this.index = index;
+            this.chunk = chunk;
+        }
+    }
+
+    private static final int LOAD_AHEAD = 1; // Chunks loaded beyond each edge of the camera window
+    private static final int KEEP_BEHIND = 2; // Chunks this close to the window are never evicted
+
+    private final File directory;
+    private final int chunkWidth, chunkHeight, chunkCount;
+    private final long memoryBudgetBytes;
+    private final Listener listener;
+
+    private final LevelChunk[] resident; // Loaded chunks by index
+    private final boolean[] pending; // Load requested, not picked up yet
+    private final boolean[] failed; // Couldn't be loaded, don't retry every tick
+    private long residentBytes = 0;
+    private final HashMap<Long, Resident> residentPlatforms = new HashMap<>(); // By source; only the game thread touches it
+    private long tick = 0;
+
+    private final ConcurrentLinkedQueue<Loaded> finished = new ConcurrentLinkedQueue<>(); // Loader -> game thread
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chunk-loader");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY); // Never compete with the game thread
+        return thread;
+    });
+
+    public ChunkStreamer(String directory, long memoryBudgetBytes, Listener listener) throws IOException {
+        this.directory = new File(directory);
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.listener = listener;
+
+        Properties info = new Properties();
+        try (Reader reader = new FileReader(new File(this.directory, "chunks.txt"))) {
+            info.load(reader);
+        }
+        chunkWidth = Integer.parseInt(info.getProperty("chunkWidth"));
+        chunkHeight = Integer.parseInt(info.getProperty("chunkHeight"));
+        chunkCount = Integer.parseInt(info.getProperty("chunkCount"));
+
+        resident = new LevelChunk[chunkCount];
+        pending = new boolean[chunkCount];
+        failed = new boolean[chunkCount];
+    }
+
+    // Loads the chunks around the camera synchronously, e.g. before the first frame
+    public void preload(double cameraX, int viewWidth) {
+        if (chunkCount == 0) {
+            return;
+        }
+        int first = chunkAt(cameraX - LOAD_AHEAD * chunkWidth);
+        int last = chunkAt(cameraX + viewWidth + LOAD_AHEAD * chunkWidth);
+        for (int i = first; i <= last; i++) {
+            if (resident[i] == null && !failed[i]) {
+                LevelChunk chunk = loadChunk(i);
+                if (chunk != null) {
+                    install(chunk);
+                } else {
+                    failed[i] = true;
+                }
+            }
+        }
+    }
+
+    // Called by the game thread once per tick, at the tick boundary
+    public void update(double cameraX, int viewWidth) {
+        tick++;
+        if (chunkCount == 0) {
+            return;
+        }
+
+        // Pick up chunks the loader finished since the last tick
+        Loaded loaded;
+        while ((loaded = finished.poll()) != null) {
+            pending[loaded.index] = false;
+            if (loaded.chunk != null) {
+                install(loaded.chunk);
+            } else {
+                failed[loaded.index] = true; // Don't retry every tick
+            }
+        }
+
+        // Request everything in (or close to) the camera window that isn't there yet
+        int first = chunkAt(cameraX - LOAD_AHEAD * chunkWidth);
+        int last = chunkAt(cameraX + viewWidth + LOAD_AHEAD * chunkWidth);
+        for (int i = first; i <= last; i++) {
+            if (resident[i] != null) {
+                resident[i].lastUsed = tick;
+            } else if (!pending[i] && !failed[i]) {
+                pending[i] = true;
+                int index = i;
+                loader.execute(() -> finished.add(new Loaded(index, loadChunk(index))));
+            }
+        }
+
+        evict(chunkAt(cameraX - KEEP_BEHIND * chunkWidth), chunkAt(cameraX + viewWidth + KEEP_BEHIND * chunkWidth));
+    }
+
+    // Draws the resident chunks that overlap the camera window. Expects g to be translated to world space.
+    public void draw(Graphics g, double cameraX, int viewWidth) {
+        if (chunkCount == 0) {
+            return;
+        }
+        int first = chunkAt(cameraX);
+        int last = chunkAt(cameraX + viewWidth);
+        for (int i = first; i <= last; i++) {
+            LevelChunk chunk = resident[i];
+            if (chunk != null && chunk.getSurface() != null) {
+                g.drawImage(chunk.getSurface(), chunk.getOriginX(), 0, null);
+            }
+        }
+    }
+
+    private void install(LevelChunk chunk) {
+        if (resident[chunk.getIndex()] != null) {
+            return; // Preloaded while the background load was in flight
+        }
+        chunk.lastUsed = tick;
+        resident[chunk.getIndex()] = chunk;
+        residentBytes += chunk.getSizeBytes();
+
+        ArrayList<Platform> added = new ArrayList<>();
+        ArrayList<Platform> owned = chunk.getPlatforms();
+        for (int i = 0; i < owned.size(); i++) {
+            addResident(LevelIO.sourceOf(chunk.getIndex(), i), owned.get(i), added);
+        }
+        ArrayList<Platform> borrowed = chunk.getBorrowed();
+        for (int i = 0; i < borrowed.size(); i++) {
+            addResident(chunk.getBorrowedSources()[i], borrowed.get(i), added);
+        }
+        if (!added.isEmpty()) {
+            listener.platformsAdded(added);
+        }
+    }
+
+    private void addResident(long source, Platform platform, ArrayList<Platform> added) {
+        Resident shared = residentPlatforms.get(source);
+        if (shared != null) {
+            shared.chunks++; // Already in the level through another chunk
+        } else {
+            residentPlatforms.put(source, new Resident(platform));
+            added.add(platform);
+        }
+    }
+
+    private void removeResident(long source, ArrayList<Platform> removed) {
+        Resident shared = residentPlatforms.get(source);
+        if (shared != null && --shared.chunks == 0) {
+            residentPlatforms.remove(source);
+            removed.add(shared.platform); // The instance that went into the level
+        }
+    }
+
+    // Drops least recently used chunks outside [keepFirst, keepLast] until we are back under budget
+    private void evict(int keepFirst, int keepLast) {
+        while (residentBytes > memoryBudgetBytes) {
+            int oldest = -1;
+            for (int i = 0; i < chunkCount; i++) {
+                if (resident[i] != null && (i < keepFirst || i > keepLast)
+                        && (oldest < 0 || resident[i].lastUsed < resident[oldest].lastUsed)) {
+                    oldest = i;
+                }
+            }
+            if (oldest < 0) {
+                return; // Everything resident is near the camera
+            }
+            LevelChunk chunk = resident[oldest];
+            resident[oldest] = null;
+            residentBytes -= chunk.getSizeBytes();
+
+            ArrayList<Platform> removed = new ArrayList<>();
+            for (int i = 0; i < chunk.getPlatforms().size(); i++) {
+                removeResident(LevelIO.sourceOf(oldest, i), removed);
+            }
+            for (long source : chunk.getBorrowedSources()) {
+                removeResident(source, removed);
+            }
+            if (!removed.isEmpty()) {
+                listener.platformsRemoved(removed);
+            }
+        }
+    }
+
+    // Runs on the loader thread (or the caller's for preload). Returns null if the chunk can't be read.
+    private LevelChunk loadChunk(int index) {
+        File levelFile = new File(directory, "chunk_" + index + ".wlvl");
+        File artFile = new File(directory, "chunk_" + index + ".png");
+        ArrayList<Platform> platforms = new ArrayList<>();
+        ArrayList<Platform> borrowed = new ArrayList<>();
+        long[] sources = new long[0];
+        try {
+            if (levelFile.isFile()) {
+                try (FileChannel channel = FileChannel.open(levelFile.toPath(), StandardOpenOption.READ)) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                    sources = LevelIO.readBinary(buffer, platforms, borrowed);
+                }
+                if (sources == null) {
+                    // Without sources a borrowed copy can't be told apart from an identical platform
+                    throw new IOException(levelFile + " was compiled by an older LevelCompiler, recompile the chunks");
+                }
+            }
+            BufferedImage art = artFile.isFile() ? ImageIO.read(artFile) : null;
+            return new LevelChunk(index, index * chunkWidth, platforms, borrowed, sources,
+                    bake(index, art, platforms, borrowed));
+        } catch (IOException e) {
+            System.err.println("Error loading level chunk " + index);
+            e.printStackTrace();
+            return null; // The caller marks it failed, on the game thread
+        }
+    }
+
+    private BufferedImage bake(int index, BufferedImage art, ArrayList<Platform> platforms, ArrayList<Platform> borrowed) {
+        if (art == null && !anyVisible(platforms) && !anyVisible(borrowed)) {
+            return null; // Nothing to draw, don't spend memory on an empty surface
+        }
+        BufferedImage surface = CompatibleImages.create(chunkWidth, chunkHeight, Transparency.TRANSLUCENT);
+        Graphics2D g2d = surface.createGraphics();
+        if (art != null) {
+            g2d.drawImage(art, 0, 0, chunkWidth, chunkHeight, null);
+        }
+        g2d.translate(-index * chunkWidth, 0); // Platforms are in world coordinates
+        for (Platform platform : platforms) {
+            platform.draw(g2d);
+        }
+        for (Platform platform : borrowed) {
+            platform.draw(g2d);
+        }
+        g2d.dispose();
+        return surface;
+    }
+
+    private static boolean anyVisible(ArrayList<Platform> platforms) {
+        for (Platform platform : platforms) {
+            if (platform.isVisible()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Index of the chunk containing world x, clamped to the level
+    private int chunkAt(double x) {
+        return Math.max(0, Math.min(chunkCount - 1, (int) Math.floor(x / chunkWidth)));
+    }
+
+    public int getWorldWidth() {
+        return chunkWidth * chunkCount;
+    }
+
+    public int getChunkWidth() {
+        return chunkWidth;
+    }
+
+    public long getResidentBytes() {
+        return residentBytes;
+    }
+
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+}
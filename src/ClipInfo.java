@@ -0,0 +1,71 @@
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+// Describes an animation clip without decoding its sheet: what the simulation needs to know about it
+public class ClipInfo {
+    private final String name;
+    private final String imagePath;
+    private final int frameWidth, frameHeight; // Dimensions of each frame
+    private final boolean isVertical; // Indicates if the frames are stacked vertically
+    private final int totalFrames;
+
+    public ClipInfo(String name, String imagePath, int frameWidth, int frameHeight, boolean isVertical, int totalFrames) {
+        this.name = name;
+        this.imagePath = imagePath;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        this.isVertical = isVertical;
+        this.totalFrames = totalFrames;
+    }
+
+    // Reads only the image header to count the frames, the pixels are never decoded
+    public static ClipInfo probe(String name, String imagePath, int frameWidth, int frameHeight, boolean isVertical) {
+        int totalFrames = 1;
+        try (ImageInputStream stream = ImageIO.createImageInputStream(new File(imagePath))) {
+            Iterator<ImageReader> readers = stream != null ? ImageIO.getImageReaders(stream) : null;
+            if (readers != null && readers.hasNext()) {
+                ImageReader reader = readers.next();
+                try {
+                    reader.setInput(stream);
+                    totalFrames = isVertical ? reader.getHeight(0) / frameHeight : reader.getWidth(0) / frameWidth;
+                } finally {
+                    reader.dispose();
+                }
+            } else {
+                System.err.println("Error reading sprite sheet header: " + imagePath);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading sprite sheet header: " + imagePath);
+            e.printStackTrace();
+        }
+        return new ClipInfo(name, imagePath, frameWidth, frameHeight, isVertical, Math.max(1, totalFrames));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getImagePath() {
+        return imagePath;
+    }
+
+    public int getFrameWidth() {
+        return frameWidth;
+    }
+
+    public int getFrameHeight() {
+        return frameHeight;
+    }
+
+    public boolean isVertical() {
+        return isVertical;
+    }
+
+    public int getTotalFrames() {
+        return totalFrames;
+    }
+}
@@ -0,0 +1,29 @@
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+public class CompatibleImages {
+    private static GraphicsConfiguration configuration; // Configuration of the default screen, null when headless
+
+    private CompatibleImages() {}
+
+    private static synchronized GraphicsConfiguration configuration() {
+        if (configuration == null && !GraphicsEnvironment.isHeadless()) {
+            configuration = GraphicsEnvironment.getLocalGraphicsEnvironment()
+                    .getDefaultScreenDevice().getDefaultConfiguration();
+        }
+        return configuration;
+    }
+
+    // Creates an image in the screen's native pixel layout, so blitting it needs no conversion
+    public static BufferedImage create(int width, int height, int transparency) {
+        GraphicsConfiguration gc = configuration();
+        if (gc != null) {
+            return gc.createCompatibleImage(width, height, transparency);
+        }
+        // No screen (headless runs): fall back to a plain ARGB image
+        return new BufferedImage(width, height,
+                transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+    }
+}
@@ -0,0 +1,277 @@
+import java.util.Arrays;
+
+// Every non-player actor in the world, stored as parallel primitive arrays (one slot per entity) so
+// the tick is a handful of tight loops over ints instead of a walk over objects. Entities only keep a
+// clip id and frame index; the images are the clips' shared scaled frames, borrowed at draw time.
+public class EntityStore {
+    private static final int GRAVITY = 1;
+
+    private final int[] clipFrames; // Frames per clip id
+    private final int[] clipWidths, clipHeights; // Scaled frame size per clip id
+
+    private int count = 0;
+    private int[] x, y; // Top left corner
+    private int[] previousX, previousY; // Position at the previous tick, for render interpolation
+    private int[] velocityX, velocityY;
+    private int[] width, height; // Collision bounds (the scaled frame size of the clip)
+    private int[] clip; // Clip id
+    private int[] frame; // Current frame of the clip
+    private long[] animationTime; // Time spent on the current frame
+    private boolean[] flip; // Facing left
+
+    public EntityStore(ClipInfo[] clips, int scaleFactor, int initialCapacity) {
+        clipFrames = new int[clips.length];
+        clipWidths = new int[clips.length];
+        clipHeights = new int[clips.length];
+        for (int i = 0; i < clips.length; i++) {
+            clipFrames[i] = Math.max(1, clips[i].getTotalFrames());
+            clipWidths[i] = clips[i].getFrameWidth() * scaleFactor;
+            clipHeights[i] = clips[i].getFrameHeight() * scaleFactor;
+        }
+        allocate(Math.max(16, initialCapacity));
+    }
+
+    private void allocate(int capacity) {
+        x = new int[capacity];
+        y = new int[capacity];
+        previousX = new int[capacity];
+        previousY = new int[capacity];
+        velocityX = new int[capacity];
+        velocityY = new int[capacity];
+        width = new int[capacity];
+        height = new int[capacity];
+        clip = new int[capacity];
+        frame = new int[capacity];
+        animationTime = new long[capacity];
+        flip = new boolean[capacity];
+    }
+
+    private void grow() {
+        int capacity = x.length * 2;
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        previousX = Arrays.copyOf(previousX, capacity);
+        previousY = Arrays.copyOf(previousY, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        width = Arrays.copyOf(width, capacity);
+        height = Arrays.copyOf(height, capacity);
+        clip = Arrays.copyOf(clip, capacity);
+        frame = Arrays.copyOf(frame, capacity);
+        animationTime = Arrays.copyOf(animationTime, capacity);
+        flip = Arrays.copyOf(flip, capacity);
+    }
+
+    // Adds an entity and returns its index. Indices are only stable until the next clear().
+    public int spawn(int spawnX, int spawnY, int clipId, int speedX) {
+        if (count == x.length) {
+            grow();
+        }
+        int i = count++;
+        x[i] = previousX[i] = spawnX;
+        y[i] = previousY[i] = spawnY;
+        velocityX[i] = speedX;
+        velocityY[i] = 0;
+        clip[i] = clipId;
+        width[i] = clipWidths[clipId];
+        height[i] = clipHeights[clipId];
+        frame[i] = 0;
+        animationTime[i] = 0;
+        flip[i] = speedX < 0;
+        return i;
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    // Advances every entity by one tick. Entities don't interact with each other, so any split of the
+    // index range gives the same result as one pass over all of it.
+    public void tick(PlatformGrid grid, PlatformGrid.Query query, int worldWidth, int worldHeight) {
+        tick(0, count, grid, query, worldWidth, worldHeight);
+    }
+
+    public void tick(int from, int to, PlatformGrid grid, PlatformGrid.Query query, int worldWidth, int worldHeight) {
+        animate(from, to);
+        move(from, to);
+        collide(from, to, grid, query);
+        clamp(from, to, worldWidth, worldHeight);
+    }
+
+    private void animate(int from, int to) {
+        for (int i = from; i < to; i++) {
+            long time = animationTime[i] + World.TICK_NANOS;
+            while (time >= World.ANIMATION_FRAME_NANOS) {
+                time -= World.ANIMATION_FRAME_NANOS;
+                frame[i] = frame[i] + 1 == clipFrames[clip[i]] ? 0 : frame[i] + 1;
+            }
+            animationTime[i] = time;
+        }
+    }
+
+    private void move(int from, int to) {
+        for (int i = from; i < to; i++) {
+            previousX[i] = x[i];
+            previousY[i] = y[i];
+            velocityY[i] += GRAVITY;
+            x[i] += velocityX[i];
+            y[i] += velocityY[i];
+        }
+    }
+
+    // Lands entities on platforms; walls and obstacles turn them around. Landing sweeps the tick's move
+    // against the tops (Platform.sweepTop, as for the player), so fast falls can't pass through thin
+    // platforms; walkers move a few pixels sideways a tick, so walls and obstacles are tested where they end up.
+    private void collide(int from, int to, PlatformGrid grid, PlatformGrid.Query query) {
+        for (int i = from; i < to; i++) {
+            int bx = x[i], by = y[i], bw = width[i], bh = height[i];
+            int px = previousX[i], py = previousY[i];
+            int dx = bx - px, dy = by - py;
+            grid.query(Math.min(px, bx), Math.min(py, by), bw + Math.abs(dx), bh + Math.abs(dy), query);
+            boolean turn = false;
+            double landing = Platform.NO_HIT;
+            int landingY = 0;
+            for (int p = 0; p < query.size(); p++) {
+                Platform platform = query.get(p);
+                double t = platform.sweepTop(px, py, bw, bh, dx, dy);
+                if (t < landing) {
+                    landing = t; // The first top the move reaches
+                    landingY = platform.getY() - bh;
+                }
+                if (platform.isObstacle() && platform.intersects(bx, by, bw, bh)) {
+                    turn = true;
+                }
+                if (platform.intersectsLeftWall(bx, by, bw, bh) && velocityX[i] > 0) {
+                    turn = true;
+                }
+                if (platform.intersectsRightWall(bx, by, bw, bh) && velocityX[i] < 0) {
+                    turn = true;
+                }
+            }
+            if (landing != Platform.NO_HIT) {
+                y[i] = landingY; // Land on top
+                velocityY[i] = 0;
+            }
+            if (turn) {
+                x[i] = previousX[i]; // Step back out of the wall before turning
+                velocityX[i] = -velocityX[i];
+                flip[i] = velocityX[i] < 0;
+            }
+        }
+    }
+
+    // Keeps entities inside the world: they turn at the edges and stand on the ground
+    private void clamp(int from, int to, int worldWidth, int worldHeight) {
+        for (int i = from; i < to; i++) {
+            if (x[i] < 0) {
+                x[i] = 0;
+                velocityX[i] = Math.abs(velocityX[i]);
+                flip[i] = false;
+            } else if (x[i] > worldWidth - width[i]) {
+                x[i] = worldWidth - width[i];
+                velocityX[i] = -Math.abs(velocityX[i]);
+                flip[i] = true;
+            }
+            if (y[i] > worldHeight - height[i]) {
+                y[i] = worldHeight - height[i];
+                velocityY[i] = 0;
+            }
+        }
+    }
+
+    public boolean overlaps(int i, int otherX, int otherY, int otherWidth, int otherHeight) {
+        return x[i] < otherX + otherWidth && otherX < x[i] + width[i]
+                && y[i] < otherY + otherHeight && otherY < y[i] + height[i];
+    }
+
+    // Snapshot support (see World.saveState)
+    public void saveState(SnapshotImage image) {
+        image.putInt(count);
+        image.putInts(x, count);
+        image.putInts(y, count);
+        image.putInts(previousX, count);
+        image.putInts(previousY, count);
+        image.putInts(velocityX, count);
+        image.putInts(velocityY, count);
+        image.putInts(width, count);
+        image.putInts(height, count);
+        image.putInts(clip, count);
+        image.putInts(frame, count);
+        image.putLongs(animationTime, count);
+        image.putBooleans(flip, count);
+    }
+
+    public void loadState(SnapshotImage image) {
+        count = image.getInt();
+        while (count > x.length) {
+            grow();
+        }
+        image.getInts(x, count);
+        image.getInts(y, count);
+        image.getInts(previousX, count);
+        image.getInts(previousY, count);
+        image.getInts(velocityX, count);
+        image.getInts(velocityY, count);
+        image.getInts(width, count);
+        image.getInts(height, count);
+        image.getInts(clip, count);
+        image.getInts(frame, count);
+        image.getLongs(animationTime, count);
+        image.getBooleans(flip, count);
+    }
+
+    public long checksum() {
+        long hash = count;
+        for (int i = 0; i < count; i++) {
+            hash = 31 * hash + x[i];
+            hash = 31 * hash + y[i];
+            hash = 31 * hash + velocityX[i];
+            hash = 31 * hash + velocityY[i];
+            hash = 31 * hash + clip[i];
+            hash = 31 * hash + frame[i];
+            hash = 31 * hash + animationTime[i];
+            hash = 31 * hash + (flip[i] ? 1 : 0);
+        }
+        return hash;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getX(int i) {
+        return x[i];
+    }
+
+    public int getY(int i) {
+        return y[i];
+    }
+
+    public int getPreviousX(int i) {
+        return previousX[i];
+    }
+
+    public int getPreviousY(int i) {
+        return previousY[i];
+    }
+
+    public int getWidth(int i) {
+        return width[i];
+    }
+
+    public int getHeight(int i) {
+        return height[i];
+    }
+
+    public int getClip(int i) {
+        return clip[i];
+    }
+
+    public int getFrame(int i) {
+        return frame[i];
+    }
+
+    public boolean isFlipped(int i) {
+        return flip[i];
+    }
+}
@@ -0,0 +1,226 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+// Times each phase of a frame and keeps the last WINDOW frames for percentiles, allocation and GC stats.
+// Recording is a couple of nanoTime() calls per phase and never allocates; the overlay text is only
+// rebuilt a few times per second.
+public class FrameProfiler {
+    public static final int INPUT = 0;
+    public static final int UPDATE = 1;
+    public static final int COLLISIONS = 2;
+    public static final int BACKGROUND = 3;
+    public static final int LEVEL = 4;
+    public static final int PLATFORMS = 5;
+    public static final int SPRITE = 6;
+    public static final int PARTICLES = 7;
+    public static final int PRESENT = 8;
+    public static final int FRAME = 9; // Whole frame, start to start
+    public static final int PHASE_COUNT = 10;
+    private static final String[] NAMES = {
+            "input", "update", "collisions", "background", "level", "platforms", "sprite", "particles", "present", "frame"
+    };
+
+    private static final int WINDOW = 512; // Frames kept for the rolling statistics
+    private static final int OVERLAY_REFRESH_FRAMES = 20;
+
+    private final long[][] samples = new long[PHASE_COUNT][WINDOW]; // Nanoseconds per phase per frame
+    private final long[] allocatedBytes = new long[WINDOW]; // Bytes allocated by the game thread per frame
+    private final long[] gcCounts = new long[WINDOW]; // Collections that finished during each frame
+    private final long[] gcMillis = new long[WINDOW]; // Time those collections took
+    private int frame = 0; // Next slot in the ring
+    private int filled = 0; // Slots holding data
+
+    private final long[] current = new long[PHASE_COUNT]; // Accumulated time per phase for the frame in progress
+    private final long[] started = new long[PHASE_COUNT];
+    private long frameStart = 0;
+
+    private final com.sun.management.ThreadMXBean threads; // null if the JVM can't count allocations
+    private long gameThreadId = -1; // Thread calling endFrame(), whose allocations are counted
+    private long lastAllocated;
+    private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private long lastGcCount, lastGcMillis;
+
+    private final long[] scratch = new long[WINDOW];
+    private String[] overlayLines = new String[0];
+    private int framesSinceRefresh = OVERLAY_REFRESH_FRAMES;
+    private final Font overlayFont = new Font(Font.MONOSPACED, Font.PLAIN, 14);
+    private final Color overlayBackground = new Color(0, 0, 0, 170);
+
+    public FrameProfiler() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threads = (com.sun.management.ThreadMXBean) bean;
+            threads.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            threads = null;
+        }
+        lastGcCount = totalGcCount();
+        lastGcMillis = totalGcMillis();
+    }
+
+    public void begin(int phase) {
+        started[phase] = System.nanoTime();
+    }
+
+    public void end(int phase) {
+        current[phase] += System.nanoTime() - started[phase]; // A phase can run several times per frame (ticks)
+    }
+
+    public void add(int phase, long nanos) {
+        current[phase] += nanos;
+    }
+
+    public long elapsed(int phase) {
+        return current[phase];
+    }
+
+    // Closes the frame in progress and starts the next one
+    public void endFrame() {
+        long now = System.nanoTime();
+        if (frameStart != 0) {
+            current[FRAME] = now - frameStart;
+        }
+        frameStart = now;
+
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            samples[phase][frame] = current[phase];
+            current[phase] = 0;
+        }
+
+        if (threads != null) {
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            long threadId = Thread.currentThread().threadId();
+            allocatedBytes[frame] = threadId == gameThreadId ? allocated - lastAllocated : 0;
+            gameThreadId = threadId;
+            lastAllocated = allocated;
+        }
+        long gcCount = totalGcCount();
+        long gcTime = totalGcMillis();
+        gcCounts[frame] = gcCount - lastGcCount;
+        gcMillis[frame] = gcTime - lastGcMillis;
+        lastGcCount = gcCount;
+        lastGcMillis = gcTime;
+
+        frame = (frame + 1) % WINDOW;
+        filled = Math.min(filled + 1, WINDOW);
+    }
+
+    private long totalGcCount() {
+        long total = 0;
+        for (int i = 0; i < collectors.size(); i++) {
+            total += Math.max(0, collectors.get(i).getCollectionCount());
+        }
+        return total;
+    }
+
+    private long totalGcMillis() {
+        long total = 0;
+        for (int i = 0; i < collectors.size(); i++) {
+            total += Math.max(0, collectors.get(i).getCollectionTime());
+        }
+        return total;
+    }
+
+    // Value at percentile p (0..100) of the first 'filled' entries of a ring
+    private long percentile(long[] ring, double p) {
+        if (filled == 0) {
+            return 0;
+        }
+        System.arraycopy(ring, 0, scratch, 0, filled);
+        Arrays.sort(scratch, 0, filled);
+        int index = (int) Math.ceil(p / 100.0 * filled) - 1;
+        return scratch[Math.max(0, Math.min(filled - 1, index))];
+    }
+
+    private long sum(long[] ring) {
+        long total = 0;
+        for (int i = 0; i < filled; i++) {
+            total += ring[i];
+        }
+        return total;
+    }
+
+    public void drawOverlay(Graphics g, int x, int y) {
+        if (++framesSinceRefresh >= OVERLAY_REFRESH_FRAMES) {
+            framesSinceRefresh = 0;
+            overlayLines = buildOverlayLines();
+        }
+
+        g.setFont(overlayFont);
+        int lineHeight = g.getFontMetrics().getHeight();
+        g.setColor(overlayBackground);
+        g.fillRect(x, y, 430, lineHeight * overlayLines.length + 10);
+        g.setColor(Color.WHITE);
+        for (int i = 0; i < overlayLines.length; i++) {
+            g.drawString(overlayLines[i], x + 8, y + 5 + lineHeight * (i + 1) - 4);
+        }
+    }
+
+    private String[] buildOverlayLines() {
+        String[] lines = new String[PHASE_COUNT + 3];
+        lines[0] = String.format("%-11s %8s %8s %8s", "phase (ms)", "p50", "p99", "max");
+        for (int phase = 0; phase < PHASE_COUNT; phase++) {
+            lines[phase + 1] = String.format("%-11s %8.3f %8.3f %8.3f", NAMES[phase],
+                    percentile(samples[phase], 50) / 1e6, percentile(samples[phase], 99) / 1e6,
+                    percentile(samples[phase], 100) / 1e6);
+        }
+        lines[PHASE_COUNT + 1] = threads != null
+                ? String.format("alloc/frame  p50 %s  p99 %s", bytes(percentile(allocatedBytes, 50)), bytes(percentile(allocatedBytes, 99)))
+                : "alloc/frame  n/a";
+        lines[PHASE_COUNT + 2] = String.format("gc last %d frames: %d pauses, %d ms", filled, sum(gcCounts), sum(gcMillis));
+        return lines;
+    }
+
+    private static String bytes(long bytes) {
+        return bytes < 10 * 1024 ? bytes + " B" : (bytes / 1024) + " KB";
+    }
+
+    // Writes the raw per-frame samples as CSV and a percentile summary as JSON. Returns the CSV file.
+    public File dump(File directory) throws IOException {
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File csv = new File(directory, "profile-" + stamp + ".csv");
+        File json = new File(directory, "profile-" + stamp + ".json");
+        int oldest = filled < WINDOW ? 0 : frame; // Oldest frame first
+
+        try (Writer out = new FileWriter(csv)) {
+            out.write("frame");
+            for (String name : NAMES) {
+                out.write("," + name + "_ns");
+            }
+            out.write(",allocated_bytes,gc_count,gc_ms\n");
+            for (int i = 0; i < filled; i++) {
+                int slot = (oldest + i) % WINDOW;
+                out.write(Integer.toString(i));
+                for (int phase = 0; phase < PHASE_COUNT; phase++) {
+                    out.write("," + samples[phase][slot]);
+                }
+                out.write("," + allocatedBytes[slot] + "," + gcCounts[slot] + "," + gcMillis[slot] + "\n");
+            }
+        }
+
+        try (Writer out = new FileWriter(json)) {
+            out.write("{\n  \"frames\": " + filled + ",\n  \"phases\": {\n");
+            for (int phase = 0; phase < PHASE_COUNT; phase++) {
+                out.write(String.format("    \"%s\": {\"p50_ns\": %d, \"p99_ns\": %d, \"max_ns\": %d}%s\n", NAMES[phase],
+                        percentile(samples[phase], 50), percentile(samples[phase], 99), percentile(samples[phase], 100),
+                        phase < PHASE_COUNT - 1 ? "," : ""));
+            }
+            out.write("  },\n");
+            out.write(String.format("  \"allocated_bytes\": {\"p50\": %d, \"p99\": %d, \"max\": %d},\n",
+                    percentile(allocatedBytes, 50), percentile(allocatedBytes, 99), percentile(allocatedBytes, 100)));
+            out.write(String.format("  \"gc\": {\"count\": %d, \"ms\": %d}\n}\n", sum(gcCounts), sum(gcMillis)));
+        }
+        return csv;
+    }
+}
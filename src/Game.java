@@ -1,43 +1,103 @@
+import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
 
+// Window, input and rendering for a World. All gameplay lives in World.
 public class Game extends JPanel implements Runnable, KeyListener {
     private boolean running = true;
-    private Sprite player;
-    private double offsetX = 0; // Scroll offset for the player
+    private World world; // The simulation being shown
+    private Sprite player; // Draws the world's player
 
-    // Background layers
-    private Image[] backgroundLayers = new Image[4];
-    private double[] layerSpeeds = {1, 2, 3, 4}; // Speeds for each layer (slower to faster)
-    private double[] layerOffsets = new double[4]; // Offsets for each layer
+    // Background layers (any numbered set of PNGs, e.g. -Dwitch.clouds="assets/Clouds/Clouds 3")
+    private ParallaxRenderer background;
 
     private boolean showCollisionBoxes = false; // Debug flag for collision boxes
 
-    private ArrayList<Platform> platforms = new ArrayList<>(); // List of platforms
-
-    private boolean isAttacking = false; // Tracks whether the player is attacking
+    private StaticLayerCache staticLayer; // Level art and static platforms, pre-drawn
+
+    // Chunked level streaming (null when the whole level is loaded up front)
+    private ChunkStreamer streamer;
+    private LevelReloader levelReloader; // Live level reloading (-Dwitch.hotReload=true), null when off
+
+    // Rewind (hold Backspace) and quicksave (F8 / F9), null while recording or replaying
+    private SnapshotRing history;
+    private final Path quicksavePath = Paths.get(System.getProperty("witch.quicksave", "quicksave.wsnp"));
+    private int obstacleHits = 0; // World.getObstacleHits() last logged
+    private double cameraX = 0, previousCameraX = 0; // Left edge of the view in world space
+
+    // Animation clips, decoded once at startup and switched by handle
+    private AnimationRegistry animations = new AnimationRegistry();
+    private int[] clipHandles; // World clip id -> registry handle
+    private int spriteClip = -1; // Clip id the sprite is currently showing
+    private BufferedImage[][][] clipFrames; // Clip id -> [flip][frame], the clips' scaled frames shared by every walker
+    private final ParticleRenderer particleRenderer = new ParticleRenderer();
+    private final int spawnBatch = Integer.getInteger("witch.spawnBatch", 1000); // Walkers added by F6
+
+    // Startup: every image and the level decode concurrently while run() shows a loading screen
+    private final AssetManager assets = new AssetManager();
+    private ClipInfo[] clips; // Player clip metadata (only the sheets' headers are read up front)
+    private final ArrayList<AssetManager.Asset<AnimationClip>> clipAssets = new ArrayList<>();
+    private AssetManager.Asset<ParallaxRenderer> backgroundAsset;
+    private AssetManager.Asset<List<Platform>> levelAsset; // null when the level is streamed
+    private AssetManager.Asset<BufferedImage> levelArtAsset;
+    private volatile String loadFailure; // Why the game can't start, shown on the loading screen before exiting
+
+    // Input recording (-Dwitch.record=<file>, written on exit) and rendered replay (-Dwitch.replay=<file>)
+    private InputRecording recording; // Session being recorded, null when not recording
+    private InputRecording replay; // Session played back instead of the keyboard, null when playing live
+    private final InputSnapshot replayInput = new InputSnapshot();
+    private int replayTick = 0;
+    private int firstDesyncTick = -1;
+
+    // Frame-time profiler; the overlay is toggled with F4 and F5 dumps the samples.
+    private final FrameProfiler profiler = new FrameProfiler();
+    private boolean showProfiler = false;
 
     public static void main(String[] args) {
         // Create the game window
         JFrame frame = new JFrame("Side Scroller Game");
-        Game game = new Game(frame);
-        frame.add(game);
+        Game game = new Game(frame); // Starts decoding the assets in the background
+        if (Arrays.asList(args).contains("--swing") || "swing".equals(System.getProperty("witch.render"))) {
+            frame.add(game); // Fallback: let Swing repaint the panel
+        } else {
+            game.useActiveRendering(3); // Default: render from the game loop, triple buffered
+        }
         frame.setSize(1920, 1080); // Set window size
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        frame.setVisible(true);
+        frame.setUndecorated(true); // Set before the window is first shown, so it never has to be recreated
+        game.showWindow();
 
-        // Start the game loop in a separate thread
+        // Start the game loop (it shows the loading screen until the assets are in) in a separate thread
         new Thread(game).start();
     }
 
     private JFrame frame;
     private boolean isFullscreen = true;
 
+    // Active rendering (null when using the Swing fallback, which draws offscreen on the game thread instead)
+    private ActiveRenderer activeRenderer;
+    private final OffscreenRenderer swingRenderer = new OffscreenRenderer(this);
+    private final Consumer<Graphics> activeScene = this::renderActive;
+    private final Consumer<Graphics> loadingScene = this::renderLoading;
+    private int viewWidth, viewHeight; // Size of the scene in world pixels: the internal resolution, or the screen
+    private int screenWidth, screenHeight; // Size of the surface we are drawing on, refreshed every loop
+
+    // Fixed internal resolution with one upscale to the screen (null with -Dwitch.resolution=native)
+    private ResolutionScaler scaler;
+    private final Consumer<Graphics> worldScene = this::renderWorld;
+
 
     public Game(JFrame frame) {
         this.frame = frame;
@@ -45,200 +105,602 @@ public class Game extends JPanel implements Runnable, KeyListener {
         setFocusable(true); // Allow the panel to receive focus
         setFocusTraversalKeysEnabled(false); // Disable default focus traversal
 
-        // Initialize the player sprite with a sprite sheet
-        player = new Sprite("assets/Blue_witch/B_witch_idle.png", 1700, 600, 21, 39, 7, true); // Frame size: 64x64, Scale factor: 3
+        scaler = ResolutionScaler.fromProperties(1920, 1080, 1_000_000_000L / (targetFps > 0 ? targetFps : 60));
+        startLoading();
+    }
 
-        // Load background layers
-        try {
-            backgroundLayers[0] = Toolkit.getDefaultToolkit().getImage("assets/Clouds/1.png");
-            backgroundLayers[1] = Toolkit.getDefaultToolkit().getImage("assets/Clouds/2.png");
-            backgroundLayers[2] = Toolkit.getDefaultToolkit().getImage("assets/Clouds/3.png");
-            backgroundLayers[3] = Toolkit.getDefaultToolkit().getImage("assets/Clouds/4.png");
+    // Queues every asset on the AssetManager; nothing here waits for more than the sheets' PNG headers
+    private void startLoading() {
+        // Player animations: decode each sheet, then slice, scale and flip its frames
+        clips = WitchClips.load();
+        for (ClipInfo info : clips) {
+            AssetManager.Asset<BufferedImage> sheet = assets.load(info.getImagePath(),
+                    () -> ImageIO.read(new File(info.getImagePath())));
+            clipAssets.add(assets.load(info.getName(), () -> {
+                AnimationClip clip = new AnimationClip(info.getName(), sheet.get(), info.getFrameWidth(),
+                        info.getFrameHeight(), info.isVertical());
+                clip.getScaledFrames(WitchClips.SCALE); // Built here, off the game thread
+                return clip;
+            }, sheet));
+        }
 
-        } catch (Exception e) {
-            System.err.println("Error loading background layers.");
-            e.printStackTrace();
+        // Background layers; a layer that fails to load is left out
+        File[] layerFiles = ParallaxRenderer.layerFiles(System.getProperty("witch.clouds", "assets/Clouds"));
+        ArrayList<AssetManager.Asset<BufferedImage>> layers = new ArrayList<>();
+        for (File file : layerFiles) {
+            layers.add(assets.load(file.getPath(), () -> {
+                try {
+                    return ImageIO.read(file);
+                } catch (IOException e) {
+                    System.err.println("Error loading background layer: " + file);
+                    e.printStackTrace();
+                    return null;
+                }
+            }));
         }
+        backgroundAsset = assets.load("background", () -> {
+            ArrayList<BufferedImage> images = new ArrayList<>();
+            for (AssetManager.Asset<BufferedImage> layer : layers) {
+                images.add(layer.get());
+            }
+            return ParallaxRenderer.fromLayers(images);
+        }, layers.toArray(new AssetManager.Asset<?>[0]));
 
-        // Initialize platforms
-        initializePlatforms();
+        // A replay brings its own level and initial state
+        String replayPath = System.getProperty("witch.replay");
+        if (replayPath != null) {
+            try {
+                replay = InputRecording.read(replayPath);
+                System.out.println("Replaying " + replayPath + ": " + replay.getTicks() + " ticks");
+            } catch (IOException e) {
+                System.err.println("Error loading replay, playing live instead.");
+                e.printStackTrace();
+            }
+        }
+
+        // The level (a streamed level is loaded chunk by chunk later instead) and its art
+        if (System.getProperty("witch.chunks") == null || replay != null) {
+            loadLevel();
+        }
+        levelArtAsset = assets.load("assets/Level1.png", () -> ImageIO.read(new File("assets/Level1.png")));
     }
 
-    private void initializePlatforms() {
-        try {
-            // Read the JSON file as a string
-            String filePath = "Level1.json"; // Path to the JSON file
-            String jsonContent = new String(java.nio.file.Files.readAllBytes(java.nio.file.Paths.get(filePath)));
-
-            // Parse the JSON array
-            JSONArray platformArray = new JSONArray(jsonContent);
-
-            // Iterate through the array and create Platform objects
-            for (int i = 0; i < platformArray.length(); i++) {
-                JSONObject platformData = platformArray.getJSONObject(i);
-                platforms.add(new Platform(
-                        platformData.getInt("x"),
-                        platformData.getInt("y"),
-                        platformData.getInt("width"),
-                        platformData.getInt("height"),
-                        platformData.getBoolean("isObstacle"),
-                        platformData.getBoolean("visible"),
-                        platformData.optBoolean("hasLeftWall", false), // Default to false if not specified
-                        platformData.optBoolean("hasRightWall", false) // Default to false if not specified
-                ));
+    private void loadLevel() {
+        String filePath = levelPath();
+        levelAsset = assets.load(filePath, () -> LevelIO.load(filePath));
+    }
+
+    private String levelPath() {
+        if (replay != null) {
+            return replay.getLevel();
+        }
+        // JSON is the authoring format; a compiled Level1.wlvl next to it is used when it is up to date
+        return System.getProperty("witch.level", "Level1.json"); // Path to the level file
+    }
+
+    // The assets the game can't start without that failed to load, as a message, or null if they are all in.
+    // The level, its art and the background are optional: the game runs without them, as it always has.
+    private String missingAssets() {
+        StringBuilder missing = new StringBuilder();
+        for (AssetManager.Asset<AnimationClip> clip : clipAssets) {
+            if (clip.get() == null) {
+                missing.append(missing.length() == 0 ? "" : ", ").append(clip.getName());
             }
-        } catch (Exception e) {
-            System.err.println("Error loading platforms from JSON file.");
-            e.printStackTrace();
         }
+        return missing.length() == 0 ? null : "Failed to load: " + missing;
     }
 
-    @Override
-    public void run() {
+    // Shows the failure on the loading screen for a moment, then closes the window and exits. The window is
+    // undecorated and fullscreen, so it must not be left up with nothing running behind it.
+    private void exitOnLoadFailure(String failure) {
+        System.err.println(failure);
+        loadFailure = failure;
+        long end = System.nanoTime() + LOAD_FAILURE_NANOS;
+        while (System.nanoTime() < end) {
+            updateViewport();
+            present(loadingScene);
+            waitUntil(System.nanoTime() + LOADING_FRAME_NANOS);
+        }
+        assets.shutdown();
+        frame.dispose();
+        System.exit(1);
+    }
 
-        frame.dispose(); // Dispose the current frame
-        frame.setUndecorated(true); // Remove window decorations
-        frame.setExtendedState(JFrame.MAXIMIZED_BOTH); // Set fullscreen
-        frame.setVisible(true);
+    // Runs on the game thread once every asset is in: builds the world and everything that draws it.
+    // The required assets have been checked (missingAssets).
+    private void finishLoading() {
+        clipHandles = new int[clips.length];
+        clipFrames = new BufferedImage[clips.length][][];
+        for (int i = 0; i < clips.length; i++) {
+            AnimationClip clip = clipAssets.get(i).get();
+            clipHandles[i] = animations.add(clip);
+            clipFrames[i] = clip.getScaledFrames(WitchClips.SCALE); // Built by the loader, just looked up
+        }
 
-        // Game loop
-        while (running) {
-            update(); // Update game logic
-            repaint(); // Trigger rendering
+        // The simulation, and the sprite that draws its player. A recording's header is the initial state.
+        String chunkDirectory = replay == null ? System.getProperty("witch.chunks") : null;
+        InputRecording session = replay != null ? replay : new InputRecording(levelPath(), 1920, 1080, 1700, 600,
+                Integer.getInteger("witch.entities", 0), spawnBatch);
+        world = session.createWorld(clips);
+        startRecording(session, chunkDirectory);
+        world.setScheduler(TickScheduler.forThreads(Integer.getInteger("witch.tickThreads",
+                Runtime.getRuntime().availableProcessors())));
+        player = new Sprite(animations.get(clipHandles[WitchClips.IDLE]), 1700, 600, WitchClips.SCALE);
+        syncPlayerSprite();
+
+        background = backgroundAsset.get();
+        if (background == null) {
+            background = ParallaxRenderer.fromLayers(new ArrayList<>());
+        }
+
+        // Initialize platforms: either stream a chunked level (-Dwitch.chunks=<dir>) or use the loaded level
+        if (chunkDirectory != null) {
+            initializeStreaming(chunkDirectory);
+        } else {
+            initializePlatforms();
+        }
+
+        // Level art is decoded once at startup instead of being looked up on every paint
+        staticLayer = new StaticLayerCache(levelArtAsset.get(), world.getPlatforms());
+        if (Boolean.getBoolean("witch.hotReload")) {
+            startHotReload(chunkDirectory);
+        }
+        if (recording == null && replay == null) {
+            // Rewinding or loading mid-session would make the recorded inputs lead somewhere else
+            history = new SnapshotRing(Integer.getInteger("witch.rewindMB", 64) << 20,
+                    World.TICKS_PER_SECOND * Integer.getInteger("witch.rewindSeconds", 10));
+            history.capture(world);
+        }
+        assets.shutdown();
+    }
+
+    public void useActiveRendering(int numBuffers) {
+        activeRenderer = new ActiveRenderer(numBuffers);
+        activeRenderer.attach(frame, this);
+    }
+
+    private void startRecording(InputRecording session, String chunkDirectory) {
+        String recordPath = System.getProperty("witch.record");
+        if (recordPath == null || replay != null) {
+            return;
+        }
+        if (chunkDirectory != null) {
+            // Chunks join the world whenever the loader finishes them, which a replay can't reproduce
+            System.err.println("Input recording is not supported with chunk streaming.");
+            return;
+        }
+        recording = session;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             try {
-                Thread.sleep(16); // Approx. 60 FPS (1000ms / 60 ≈ 16ms)
-            } catch (InterruptedException e) {
+                recording.write(recordPath);
+                System.out.println("Recorded " + recording.getTicks() + " ticks to " + recordPath);
+            } catch (IOException e) {
+                System.err.println("Error writing input recording.");
                 e.printStackTrace();
             }
+        }));
+    }
+
+    private void initializePlatforms() {
+        if (levelAsset == null) {
+            loadLevel(); // Chunk streaming failed to start, load the whole level after all
+        }
+        List<Platform> platforms = levelAsset.get();
+        if (platforms != null) {
+            world.addPlatforms(platforms); // Also builds the collision index
         }
     }
 
-    private int gravity = 1;
-    private int velocityX = 0;
-    private int velocityY = 0;
-    private int animationCounter = 0;
-    private final int ANIMATION_SPEED = 10; // Change frame every 10 updates
+    private void startHotReload(String chunkDirectory) {
+        if (chunkDirectory != null || replay != null || recording != null) {
+            // A streamed level changes under its own rules, and a recording has to see the level it was made on
+            System.err.println("Level hot reload is not supported with chunk streaming, recording or replay.");
+            return;
+        }
+        try {
+            levelReloader = new LevelReloader(levelPath(), world.getPlatforms());
+            System.out.println("Watching " + levelPath() + " for changes");
+        } catch (IOException e) {
+            System.err.println("Error watching the level, hot reload is off.");
+            e.printStackTrace();
+        }
+    }
 
-    private void update() {
-        // Scroll when the player moves past a certain point
+    // Applies the level edits the reloader finished since the last tick, all at once before the tick runs
+    private void applyLevelReloads() {
+        for (LevelReloader.Diff diff : levelReloader.poll()) {
+            for (int i = 0; i < diff.getIndices().length; i++) {
+                staticLayer.invalidate(diff.getPrevious()[i]); // Where it was drawn
+                if (diff.getReplacements()[i] != null) {
+                    staticLayer.invalidate(diff.getReplacements()[i]); // Where it is drawn now
+                }
+            }
+            for (Platform platform : diff.getAdded()) {
+                staticLayer.invalidate(platform);
+            }
+            world.replacePlatforms(diff.getIndices(), diff.getReplacements());
+            world.addPlatforms(diff.getAdded());
+            System.out.println("Level reloaded: " + diff);
+        }
+    }
 
-        animationCounter++;
-        if (animationCounter >= ANIMATION_SPEED) {
-            animationCounter = 0;
+    private void initializeStreaming(String chunkDirectory) {
+        long budget = Long.getLong("witch.chunkBudgetMB", 256) * 1024 * 1024;
+        try {
+            streamer = new ChunkStreamer(chunkDirectory, budget, new ChunkStreamer.Listener() {
+                @Override
+                public void platformsAdded(List<Platform> platforms) {
+                    world.addPlatforms(platforms);
+                }
 
-            // Cycle through frames
-            int currentFrame = player.getCurrentFrame();
-            player.setCurrentFrame((currentFrame + 1) % player.getTotalFrames());
+                @Override
+                public void platformsRemoved(List<Platform> platforms) {
+                    world.removePlatforms(platforms);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error opening chunked level, loading the whole level instead.");
+            e.printStackTrace();
+            initializePlatforms();
         }
+    }
 
-        if (running) {
-            offsetX -= 0.1; // Move the background left
+    // The camera follows the player when the level is wider than the screen
+    private void updateCamera() {
+        double target = world.getPlayerX() + world.getPlayerWidth() / 2.0 - viewWidth / 2.0;
+        cameraX = Math.max(0, Math.min(target, world.getWidth() - viewWidth));
+    }
 
-            // Update offsets for each background layer based on their speeds
-            for (int i = 0; i < layerOffsets.length; i++) {
-                layerOffsets[i] = (offsetX * layerSpeeds[i]) % getWidth();
-            }
+    // Shows the (already undecorated) frame fullscreen
+    private void showWindow() {
+        if (activeRenderer != null) {
+            activeRenderer.enterFullscreen(frame); // Fullscreen exclusive (page flipping) when available
+        } else {
+            frame.setExtendedState(JFrame.MAXIMIZED_BOTH); // Set fullscreen
         }
+        frame.setVisible(true);
+    }
 
-        // Update attack animation
-        if (isAttacking) {
-            int currentFrame = player.getCurrentFrame();
-            if (currentFrame >= player.getTotalFrames() - 1) {
-                // Reset to idle animation after attack finishes
-                isAttacking = false;
-                System.out.println("Allowed");
-                player.unlockAnimation(); // Unlock the animation
-                if (velocityX == 0) {
-                    player.setSpriteSheet("assets/Blue_witch/B_witch_idle.png", 21, 39, true);
-                } else {
-                    player.setSpriteSheet("assets/Blue_witch/B_witch_run.png", 21, 41, false);
-                }
-            }
+    @Override
+    public void run() {
+        if (activeRenderer != null) {
+            activeRenderer.createBufferStrategy();
         }
 
-        if (player.getX() < 0) {
-            player.move(5, 0); // Prevent moving off the left edge
+        // Loading screen while the assets decode
+        while (running && !assets.isDone()) {
+            updateViewport();
+            present(loadingScene);
+            waitUntil(System.nanoTime() + LOADING_FRAME_NANOS);
+        }
+        String failure = missingAssets();
+        if (failure == null) {
+            try {
+                finishLoading();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                failure = "Error starting the game: " + e.getMessage();
+            }
         }
-        if (player.getY() < 0) {
-            player.move(0, 10); // Prevent moving off the top edge
+        if (failure != null) {
+            exitOnLoadFailure(failure);
+            return;
         }
-        if (player.getX() > getWidth() - player.getWidth()) {
-            player.move(-5, 0); // Prevent moving off the right edge
+        long loadingNanos = assets.getElapsedNanos();
+        boolean firstFrame = true;
+
+        if (streamer != null) {
+            // Load the chunks around the spawn point before the first tick so the player doesn't fall through
+            updateViewport();
+            world.setSize(streamer.getWorldWidth(), viewHeight);
+            updateCamera();
+            previousCameraX = cameraX;
+            streamer.preload(cameraX, viewWidth);
+        }
+
+        // Game loop: the simulation advances in fixed steps, rendering runs as often as the frame cap allows
+        long frameNanos = targetFps > 0 ? 1_000_000_000L / targetFps : 0;
+        long previousTime = System.nanoTime();
+        long nextFrameTime = previousTime;
+        long accumulator = 0;
+        while (running) {
+            long now = System.nanoTime();
+            accumulator += Math.min(now - previousTime, MAX_FRAME_NANOS); // Clamp so a long stall can't snowball
+            previousTime = now;
+
+            updateViewport();
+            while (accumulator >= World.TICK_NANOS) {
+                savePreviousState();
+                update(); // Update game logic
+                accumulator -= World.TICK_NANOS;
+            }
+            renderAlpha = accumulator / (double) World.TICK_NANOS; // How far we are between the last two ticks
+
+            long renderStart = System.nanoTime();
+            present(activeScene); // Draw right now, on this thread
+            // Whatever rendering spent outside the scene phases is clearing, overlay, show() and sync (or the blit)
+            profiler.add(FrameProfiler.PRESENT, System.nanoTime() - renderStart - sceneNanos());
+            profiler.endFrame();
+            if (scaler != null && scaler.frameFinished(System.nanoTime() - now)) {
+                System.out.printf("Render scale %.0f%%%n", scaler.getScale() * 100); // Dynamic resolution stepped
+            }
+
+            if (firstFrame) {
+                firstFrame = false;
+                System.out.printf("First interactive frame %d ms after launch (%d assets in %d ms, %d failed)%n",
+                        ManagementFactory.getRuntimeMXBean().getUptime(), assets.getTotal(),
+                        loadingNanos / 1_000_000, assets.getFailed());
+            }
+
+            if (frameNanos > 0) {
+                nextFrameTime += frameNanos;
+                if (nextFrameTime < System.nanoTime() - frameNanos) {
+                    nextFrameTime = System.nanoTime(); // We fell behind, don't try to catch up with extra frames
+                }
+                waitUntil(nextFrameTime);
+            }
         }
-        if (player.getY() > getHeight() - player.getHeight()) {
-            player.move(0, -10); // Prevent moving off the bottom edge
+    }
+
+    // Sleeps for most of the wait, then spins for the last stretch since sleep() can overshoot by a millisecond or more
+    private void waitUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                try {
+                    Thread.sleep((remaining - SPIN_THRESHOLD_NANOS) / 1_000_000);
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                    return;
+                }
+            } else {
+                Thread.onSpinWait();
+            }
         }
+    }
 
-        velocityY += gravity; // Apply gravity
-        player.move(velocityX, velocityY); // Update position based on velocity
+    private static final long MAX_FRAME_NANOS = 250_000_000L; // Never simulate more than 250ms in one frame
+    private static final long SPIN_THRESHOLD_NANOS = 2_000_000L;
+    private static final long LOADING_FRAME_NANOS = 16_000_000L; // The loading screen redraws at about 60 FPS
+    private static final long LOAD_FAILURE_NANOS = 3_000_000_000L; // How long a load failure stays on screen
+    private int targetFps = Integer.getInteger("witch.fps", 60); // Frame cap, 0 = uncapped
+    private double renderAlpha = 1; // Interpolation factor between the previous and the current tick
+    private double previousOffsetX = 0; // Scroll offset at the previous tick, for interpolation
+
+    private long sceneNanos() {
+        return profiler.elapsed(FrameProfiler.BACKGROUND) + profiler.elapsed(FrameProfiler.LEVEL)
+                + profiler.elapsed(FrameProfiler.PLATFORMS) + profiler.elapsed(FrameProfiler.SPRITE)
+                + profiler.elapsed(FrameProfiler.PARTICLES);
+    }
 
-        handleCollisions();
+    private void savePreviousState() {
+        previousOffsetX = world.getOffsetX();
+        previousCameraX = cameraX;
+        player.savePreviousPosition();
+    }
 
-        // Prevent falling through the ground
-        if (player.getY() > getHeight() - player.getHeight()){
-            player.move(0, -(player.getY() - (getHeight()  - player.getHeight())));
-            velocityY = 0; // Reset velocity when on the ground
+    private void updateViewport() {
+        if (activeRenderer != null) {
+            screenWidth = activeRenderer.getWidth();
+            screenHeight = activeRenderer.getHeight();
+        } else {
+            screenWidth = getWidth();
+            screenHeight = getHeight();
         }
+        // With an internal resolution the scene (and the world) keep their size whatever the screen is
+        viewWidth = scaler != null ? scaler.getWidth() : screenWidth;
+        viewHeight = scaler != null ? scaler.getHeight() : screenHeight;
     }
 
-    private void handleCollisions() {
-        Rectangle playerBounds = player.getBounds();
+    private void update() {
+        // Chunks that finished loading join the level here, at the tick boundary
+        if (streamer != null) {
+            streamer.update(cameraX, viewWidth);
+        }
+        // So do edits to the level file
+        if (levelReloader != null) {
+            applyLevelReloads();
+        }
 
-        for (Platform platform : platforms) {
-            Rectangle platformBounds = platform.getBounds();
-            Rectangle leftWallBounds = platform.getLeftWallBounds();
-            Rectangle rightWallBounds = platform.getRightWallBounds();
+        profiler.begin(FrameProfiler.INPUT);
+        input.drain(inputQueue);
+        profiler.end(FrameProfiler.INPUT);
+        if (input.wasPressed(InputSnapshot.DEBUG)) {
+            showCollisionBoxes = !showCollisionBoxes; // Toggle debug mode
+            System.out.println("Collision boxes: " + (showCollisionBoxes ? "Visible" : "Hidden"));
+        }
+        if (input.wasPressed(InputSnapshot.PROFILER)) {
+            showProfiler = !showProfiler;
+        }
+        if (input.wasPressed(InputSnapshot.PROFILE_DUMP)) {
+            try {
+                System.out.println("Profile written to " + profiler.dump(new File(".")));
+            } catch (IOException e) {
+                System.err.println("Error writing profile.");
+                e.printStackTrace();
+            }
+        }
 
-            // Check collision with the platform
-            if (playerBounds.intersects(platformBounds)) {
-                if (platform.isObstacle()) {
-                    // Handle collision with an obstacle (e.g., reset player position or reduce health)
-                    System.out.println("Player hit an obstacle!");
-                    player.move(-100, 0); // Example: Push player back
-                } else {
-                    // Handle collision with a regular platform
-                    if (velocityY > 0 && player.getY() + player.getHeight() <= platform.getY() + 40) {
-                        // Player lands on top of the platform
-                        player.move(0, -(player.getY() + player.getHeight() - platform.getY()));
-                        velocityY = 0; // Stop falling
-                    }
-                }
+        if (history != null && input.wasPressed(InputSnapshot.SAVE_STATE)) {
+            try {
+                history.save(world, quicksavePath);
+                System.out.println("Saved tick " + world.getTick() + " to " + quicksavePath);
+            } catch (IOException e) {
+                System.err.println("Error writing quicksave.");
+                e.printStackTrace();
             }
+        }
+        if (history != null && input.wasPressed(InputSnapshot.LOAD_STATE)) {
+            try {
+                history.load(quicksavePath, world);
+                history.capture(world); // Rewinding starts over from the loaded state
+                syncPlayerSprite();
+                System.out.println("Loaded tick " + world.getTick() + " from " + quicksavePath);
+            } catch (IOException | IllegalStateException e) {
+                System.err.println("Error loading quicksave.");
+                e.printStackTrace();
+            }
+        }
 
-            // Check collision with the left wall
-            if (leftWallBounds != null && playerBounds.intersects(leftWallBounds)) {
-                player.move(-5, 0); // Push player away from the left wall
+        // The simulation sees the keyboard, or the recorded snapshot (debug keys above stay live during a replay)
+        InputSnapshot simulated = input;
+        if (replay != null) {
+            if (replayTick == replay.getTicks()) {
+                finishReplay();
+                return;
             }
+            replay.apply(replayTick, replayInput, world); // Also restores the recorded world size
+            simulated = replayInput;
+        } else if (viewWidth > 0 && viewHeight > 0) {
+            // The world is as wide as the streamed level, or the screen; the ground is the bottom of the screen
+            world.setSize(streamer != null ? streamer.getWorldWidth() : viewWidth, viewHeight);
+        }
+        profiler.begin(FrameProfiler.UPDATE);
+        boolean rewinding = history != null && simulated.isDown(InputSnapshot.REWIND);
+        if (rewinding) {
+            history.rewind(world); // One tick back per tick, until the oldest kept state
+        } else {
+            world.tick(simulated);
+            if (history != null) {
+                history.capture(world);
+            }
+        }
+        syncPlayerSprite();
+        profiler.end(FrameProfiler.UPDATE);
+        if (!rewinding) {
+            profiler.add(FrameProfiler.UPDATE, -world.getCollisionNanos()); // Reported on its own line
+            profiler.add(FrameProfiler.COLLISIONS, world.getCollisionNanos());
+        }
+        if (simulated.wasPressed(InputSnapshot.SPAWN)) {
+            System.out.println("Entities: " + world.getEntities().size());
+        }
+        if (world.getObstacleHits() != obstacleHits) {
+            obstacleHits = world.getObstacleHits();
+            System.out.println("Player hit an obstacle!");
+        }
 
-            // Check collision with the right wall
-            if (rightWallBounds != null && playerBounds.intersects(rightWallBounds)) {
-                player.move(5, 0); // Push player away from the right wall
+        if (recording != null) {
+            recording.record(simulated, world);
+        }
+        if (replay != null) {
+            Long expected = replay.checksumAfter(++replayTick);
+            if (expected != null && expected != world.checksum() && firstDesyncTick < 0) {
+                firstDesyncTick = replayTick;
+                System.err.println("Replay desync at tick " + replayTick);
             }
         }
+
+        // Scroll when the player moves past the middle of the screen
+        if (streamer != null) {
+            updateCamera();
+        }
+    }
+
+    // Reports the replay (checksum, desync, frame times) and quits; the exit code is 1 on a desync
+    private void finishReplay() {
+        System.out.printf("Replay finished: %d ticks, checksum %016x, %s%n", replayTick, world.checksum(),
+                firstDesyncTick < 0 ? "no desync" : "first desync at tick " + firstDesyncTick);
+        try {
+            System.out.println("Frame times written to " + profiler.dump(new File(".")));
+        } catch (IOException e) {
+            System.err.println("Error writing profile.");
+            e.printStackTrace();
+        }
+        running = false;
+        System.exit(firstDesyncTick < 0 ? 0 : 1);
+    }
+
+    // Copies the player's state from the world into the sprite that draws it
+    private void syncPlayerSprite() {
+        if (world.getClip() != spriteClip) {
+            spriteClip = world.getClip();
+            player.setAnimation(animations.get(clipHandles[spriteClip])); // No I/O, just swaps the clip
+        }
+        player.setCurrentFrame(world.getCurrentFrame());
+        player.setFlipHorizontal(world.isFlippedHorizontal());
+        player.setPosition(world.getPlayerX(), world.getPlayerY());
+    }
+
+    // Draws a frame on the game thread: straight to the screen with active rendering, else into the
+    // offscreen image that paintComponent shows
+    private void present(Consumer<Graphics> scene) {
+        if (activeRenderer != null) {
+            activeRenderer.renderFrame(scene);
+        } else {
+            swingRenderer.renderFrame(screenWidth, screenHeight, scene);
+        }
     }
 
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        render(g); // Render sprites and other elements
+        swingRenderer.paint(g); // Only the finished frame: the EDT never touches the world
     }
 
-    private void render(Graphics g) {
-        // Draw background layers with parallax effect
-        for (int i = 0; i < backgroundLayers.length; i++) {
-            int offset = (int) layerOffsets[i];
-            g.drawImage(backgroundLayers[i], offset, 0, getWidth(), getHeight(), this);
-            g.drawImage(backgroundLayers[i], offset + getWidth(), 0, getWidth(), getHeight(), this); // Repeat for seamless scrolling
+    private void renderLoading(Graphics g) {
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, screenWidth, screenHeight);
+        int barWidth = screenWidth / 3, barX = (screenWidth - barWidth) / 2, barY = screenHeight / 2;
+        g.setColor(Color.DARK_GRAY);
+        g.fillRect(barX, barY, barWidth, 12);
+        g.setColor(Color.WHITE);
+        g.fillRect(barX, barY, (int) (barWidth * assets.getProgress()), 12);
+        g.drawString("Loading " + assets.getFinished() + "/" + assets.getTotal() + "  " + assets.getLastFinished(),
+                barX, barY - 10);
+        String failure = loadFailure;
+        if (failure != null) {
+            g.setColor(Color.RED);
+            g.drawString(failure, barX, barY + 30);
         }
+    }
 
-        g.drawImage(Toolkit.getDefaultToolkit().getImage("assets/Level1.png"), 0, 0, getWidth(), getHeight(), this);
+    private void renderActive(Graphics g) {
+        if (scaler != null) {
+            scaler.render(g, screenWidth, screenHeight, worldScene); // Scene at the internal resolution, one upscale
+        } else {
+            renderWorld(g);
+        }
+        if (showProfiler) {
+            profiler.drawOverlay(g, 10, 10);
+        }
+    }
+
+    private void renderWorld(Graphics g) {
+        // Nothing clears the back buffer for us here
+        g.setColor(getBackground());
+        g.fillRect(0, 0, viewWidth, viewHeight);
+        render(g);
+    }
 
-        // Draw platforms
-        for (Platform platform : platforms) {
-            platform.draw(g);
+    private void render(Graphics g) {
+        double alpha = renderAlpha;
+
+        // Draw background layers with parallax effect, using the interpolated scroll (and camera, when streaming)
+        double camera = previousCameraX + (cameraX - previousCameraX) * alpha;
+        double scroll = previousOffsetX + (world.getOffsetX() - previousOffsetX) * alpha;
+        profiler.begin(FrameProfiler.BACKGROUND);
+        background.draw(g, scroll - camera * 0.1, viewWidth, viewHeight);
+        profiler.end(FrameProfiler.BACKGROUND);
+
+        // Everything below is drawn in world space
+        int cameraOffset = (int) Math.round(camera);
+        g.translate(-cameraOffset, 0);
+
+        profiler.begin(FrameProfiler.LEVEL);
+        if (streamer != null) {
+            streamer.draw(g, cameraOffset, viewWidth); // Pre-drawn chunks around the camera
+        } else {
+            // Level art and platforms come from the cache (rebuilt only on resize, level change or surface loss)
+            staticLayer.draw(g, viewWidth, viewHeight);
+        }
+        profiler.end(FrameProfiler.LEVEL);
 
-            // Draw platform collision box
-            if (showCollisionBoxes) {
+        // Draw platform collision boxes
+        profiler.begin(FrameProfiler.PLATFORMS);
+        if (showCollisionBoxes) {
+            List<Platform> platforms = world.getPlatforms();
+            for (int i = 0; i < platforms.size(); i++) {
+                Platform platform = platforms.get(i);
                 Rectangle platformBounds = platform.getBounds();
                 g.setColor(Color.GREEN); // Example: Green for platforms
                 g.drawRect(platformBounds.x, platformBounds.y, platformBounds.width, platformBounds.height);
@@ -259,8 +721,18 @@ public class Game extends JPanel implements Runnable, KeyListener {
             }
         }
 
-        // Draw the player sprite
-        player.draw(g);
+        profiler.end(FrameProfiler.PLATFORMS);
+
+        // Draw the walkers, then the player over them, between their last two positions
+        profiler.begin(FrameProfiler.SPRITE);
+        drawEntities(g, alpha, cameraOffset);
+        player.draw(g, alpha);
+        profiler.end(FrameProfiler.SPRITE);
+
+        // Spells, sparks and puffs, over the sprites
+        profiler.begin(FrameProfiler.PARTICLES);
+        particleRenderer.draw(g, world.getParticles(), cameraOffset, viewWidth, viewHeight);
+        profiler.end(FrameProfiler.PARTICLES);
 
         // Draw player collision box
         if (showCollisionBoxes) {
@@ -268,70 +740,41 @@ public class Game extends JPanel implements Runnable, KeyListener {
             g.setColor(Color.RED); // Example: Red for player
             g.drawRect(playerBounds.x, playerBounds.y, playerBounds.width, playerBounds.height);
         }
-    }
-
-    private boolean isRunning = false;
 
-    @Override
-    public void keyPressed(KeyEvent e) {
-        int keyCode = e.getKeyCode();
-
-        if (keyCode == KeyEvent.VK_F3) {
-            showCollisionBoxes = !showCollisionBoxes; // Toggle debug mode
-            System.out.println("Collision boxes: " + (showCollisionBoxes ? "Visible" : "Hidden"));
-        }
-
-        // Jumping with W or Space bar
-        if ((keyCode == KeyEvent.VK_W || keyCode == KeyEvent.VK_SPACE) && velocityY == 0) { // Jump only when on the ground
-            velocityY = -25; // Set upward velocity for jumping
-        }
+        g.translate(cameraOffset, 0);
+    }
 
-        // Movement using A, S, D keys
-        if (keyCode == KeyEvent.VK_A) {
-            velocityX = -5; // Move left
-            player.setFlipHorizontal(true); // Flip sprite horizontally
-            if (!isRunning) { // Switch to running animation only if not already running
-                player.setSpriteSheet("assets/Blue_witch/B_witch_run.png", 21, 41, true);
-                isRunning = true; // Update the animation state
-            }
-        } else if (keyCode == KeyEvent.VK_S) {
-            velocityY = 10; // Move down
-        } else if (keyCode == KeyEvent.VK_D) {
-            velocityX = 5; // Move right
-            player.setFlipHorizontal(false); // Flip sprite horizontally
-            if (!isRunning) { // Switch to running animation only if not already running
-                player.setSpriteSheet("assets/Blue_witch/B_witch_run.png", 21, 41, true);
-                isRunning = true; // Update the animation state
+    // One loop over the entity arrays; only entities overlapping the view are drawn
+    private void drawEntities(Graphics g, double alpha, int cameraOffset) {
+        EntityStore entities = world.getEntities();
+        int viewRight = cameraOffset + viewWidth;
+        for (int i = 0; i < entities.size(); i++) {
+            int x = entities.getX(i);
+            int width = entities.getWidth(i);
+            if (x + width < cameraOffset || x > viewRight) {
+                continue;
             }
+            int previousX = entities.getPreviousX(i), previousY = entities.getPreviousY(i);
+            int drawX = (int) Math.round(previousX + (x - previousX) * alpha);
+            int drawY = (int) Math.round(previousY + (entities.getY(i) - previousY) * alpha);
+            g.drawImage(clipFrames[entities.getClip(i)][entities.isFlipped(i) ? 1 : 0][entities.getFrame(i)], drawX, drawY, null);
         }
+    }
 
-        // Attack with J key
-        if (keyCode == KeyEvent.VK_J && !player.isAnimationLocked()) {
-            isAttacking = true; // Start the attack animation
-            player.lockAnimation(); // Lock the animation
-            System.out.println("Not Allowed");
-            player.setSpriteSheet("assets/Blue_witch/B_witch_attack.png", 104, 45, true); // Switch to attack animation
-            player.setCurrentFrame(0); // Start at the first frame
-        }
+    // Input: the AWT thread only queues key events, the game thread turns them into a snapshot each tick
+    private final InputQueue inputQueue = new InputQueue(256);
+    private final InputSnapshot input = new InputSnapshot();
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        inputQueue.offer(InputQueue.encode(e.getKeyCode(), true)); // No state is touched on the AWT thread
     }
 
     @Override
     public void keyReleased(KeyEvent e) {
-        int keyCode = e.getKeyCode();
-
-        if (keyCode == KeyEvent.VK_A || keyCode == KeyEvent.VK_D) {
-            velocityX = 0; // Stop horizontal movement
-            if (isRunning) { // Switch back to idle animation only if previously running
-                player.setSpriteSheet("assets/Blue_witch/B_witch_idle.png", 21, 39, true);
-                isRunning = false; // Update the animation state
-            }
-        }
-
-        if (keyCode == KeyEvent.VK_S) {
-            velocityY = 0; // Stop downward movement
-        }
+        inputQueue.offer(InputQueue.encode(e.getKeyCode(), false));
     }
 
     @Override
     public void keyTyped(KeyEvent e) {}
-}
\ No newline at end of file
+}
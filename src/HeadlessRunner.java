@@ -0,0 +1,86 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Runs many independent Worlds with scripted input as fast as the CPU allows, spread over all cores.
+// No window, no AWT rendering. Usage:
+//   java -Djava.awt.headless=true -cp out:lib/json-20250107.jar HeadlessRunner [worlds] [ticks] [threads] [level]
+// -Dwitch.entities=N adds N walkers to every world and -Dwitch.tickThreads=T ticks them on T threads per
+// world; the checksums must not change with T.
+public class HeadlessRunner {
+    public static void main(String[] args) throws Exception {
+        int worlds = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+        int ticks = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        String level = args.length > 3 ? args[3] : "Level1.json";
+
+        // Loaded once and shared: platforms are read-only, each World builds its own collision index
+        ClipInfo[] clips = WitchClips.load();
+        List<Platform> platforms = LevelIO.load(level);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Long>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < worlds; i++) {
+            long seed = i + 1;
+            results.add(pool.submit(() -> run(clips, platforms, ticks, seed)));
+        }
+
+        long combined = 0;
+        for (int i = 0; i < results.size(); i++) {
+            long checksum = results.get(i).get();
+            combined = combined * 31 + checksum;
+            if (i < 4) {
+                System.out.printf("world %d checksum %016x%n", i, checksum);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        pool.shutdown();
+
+        long totalTicks = (long) worlds * ticks;
+        System.out.printf("%d worlds x %d ticks on %d threads in %.2f s: %.0f ticks/s (%.0fx real time per world)%n",
+                worlds, ticks, threads, elapsed / 1e9, totalTicks / (elapsed / 1e9),
+                (totalTicks / (elapsed / 1e9)) / worlds / World.TICKS_PER_SECOND);
+        System.out.printf("combined checksum %016x%n", combined);
+    }
+
+    // Simulates one world with pseudo-random but seeded (so reproducible) input
+    public static long run(ClipInfo[] clips, List<Platform> platforms, int ticks, long seed) {
+        World world = new World(clips, WitchClips.SCALE, 1920, 1080, 1700, 600);
+        world.addPlatforms(platforms);
+        world.spawnWalkers(Integer.getInteger("witch.entities", 0));
+        TickScheduler scheduler = TickScheduler.forThreads(Integer.getInteger("witch.tickThreads", 1));
+        world.setScheduler(scheduler);
+        InputSnapshot input = new InputSnapshot();
+
+        long random = seed * 0x9E3779B97F4A7C15L + 1;
+        int held = 0;
+        for (int t = 0; t < ticks; t++) {
+            random ^= random << 13; // xorshift64
+            random ^= random >>> 7;
+            random ^= random << 17;
+
+            int pressed = 0;
+            int released = 0;
+            if (t % 30 == 0) { // Change direction twice a second
+                int next = (int) ((random >>> 8) & 3) == 0 ? InputSnapshot.LEFT
+                        : (int) ((random >>> 8) & 3) == 1 ? InputSnapshot.RIGHT : 0;
+                released = held & ~next;
+                pressed = next & ~held;
+                held = next;
+            }
+            if ((random & 63) == 0) {
+                pressed |= InputSnapshot.JUMP;
+            }
+            if (((random >>> 20) & 127) == 0) {
+                pressed |= InputSnapshot.ATTACK;
+            }
+            input.set(held, pressed, released);
+            world.tick(input);
+        }
+        scheduler.shutdown();
+        return world.checksum();
+    }
+}
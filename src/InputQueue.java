@@ -0,0 +1,59 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lock-free single-producer/single-consumer ring buffer of key events. The AWT event thread is the only
+// producer and the game thread the only consumer, so offer() and poll() never block and never allocate.
+public class InputQueue {
+    public static final int EMPTY = -1;
+
+    private final int[] events;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); // Next slot to read, only advanced by the consumer
+    private final AtomicLong tail = new AtomicLong(); // Next slot to write, only advanced by the producer
+    private final AtomicLong dropped = new AtomicLong(); // Events lost because the queue was full
+
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1; // Round up to a power of two
+        events = new int[size];
+        mask = size - 1;
+    }
+
+    // Packs a key event into a single int: key code in the upper bits, pressed/released in bit 0
+    public static int encode(int keyCode, boolean pressed) {
+        return (keyCode << 1) | (pressed ? 1 : 0);
+    }
+
+    public static int keyCode(int event) {
+        return event >>> 1;
+    }
+
+    public static boolean isPress(int event) {
+        return (event & 1) != 0;
+    }
+
+    // Producer side. Returns false (and drops the event) if the game thread fell a whole buffer behind.
+    public boolean offer(int event) {
+        long t = tail.get();
+        if (t - head.get() == events.length) {
+            dropped.incrementAndGet();
+            return false;
+        }
+        events[(int) t & mask] = event;
+        tail.lazySet(t + 1); // Release store: the slot write is visible before the new tail
+        return true;
+    }
+
+    // Consumer side. Returns EMPTY when there is nothing to read.
+    public int poll() {
+        long h = head.get();
+        if (h == tail.get()) {
+            return EMPTY;
+        }
+        int event = events[(int) h & mask];
+        head.lazySet(h + 1); // Hand the slot back to the producer
+        return event;
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+}
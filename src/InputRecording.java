@@ -0,0 +1,220 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+// A play session as the simulation saw it: how the World was set up, then per tick the InputSnapshot
+// and the world size, plus a checksum every CHECKSUM_INTERVAL ticks to spot desyncs on replay.
+//
+// File format (.wrec, big endian header, then varint records):
+//   header:  int magic ('WREC'), int version, UTF level path, int width, int height, int spawnX, int spawnY,
+//            int initialEntities, int spawnBatch
+//   records: 0 count down pressed released   'count' ticks with the same snapshot
+//            1 width height                  world size from the next tick on
+//            2 tick checksum                 World.checksum() after that tick (checksum as zigzag varint)
+//            3                               end
+// A session is mostly runs of identical ticks, so an hour of play is typically a few kilobytes.
+public class InputRecording {
+    public static final int MAGIC = 0x57524543; // "WREC"
+    public static final int VERSION = 2; // 2: checksums include the spawn and particle seeds
+    public static final int CHECKSUM_INTERVAL = 60; // Ticks between recorded checksums
+
+    private static final int RUN = 0, SIZE = 1, CHECKSUM = 2, END = 3;
+
+    // Initial state
+    private final String level;
+    private final int width, height, spawnX, spawnY, initialEntities, spawnBatch;
+
+    // Per tick
+    private int ticks = 0;
+    private int[] down = new int[1024], pressed = new int[1024], released = new int[1024];
+    private int[] widths = new int[1024], heights = new int[1024];
+    private long[] checksums = new long[64]; // Index n: checksum after tick (n + 1) * CHECKSUM_INTERVAL
+
+    public InputRecording(String level, int width, int height, int spawnX, int spawnY, int initialEntities, int spawnBatch) {
+        this.level = level;
+        this.width = width;
+        this.height = height;
+        this.spawnX = spawnX;
+        this.spawnY = spawnY;
+        this.initialEntities = initialEntities;
+        this.spawnBatch = spawnBatch;
+    }
+
+    // A World in the recorded initial state, without platforms (the caller loads getLevel())
+    public World createWorld(ClipInfo[] clips) {
+        World world = new World(clips, WitchClips.SCALE, width, height, spawnX, spawnY);
+        world.setSpawnBatch(spawnBatch);
+        world.spawnWalkers(initialEntities);
+        return world;
+    }
+
+    // Records one tick: call after world.tick(input) with the world that was ticked
+    public synchronized void record(InputSnapshot input, World world) {
+        append(input, world.getWidth(), world.getHeight());
+        if (ticks % CHECKSUM_INTERVAL == 0) {
+            int index = ticks / CHECKSUM_INTERVAL - 1;
+            if (index == checksums.length) {
+                checksums = Arrays.copyOf(checksums, index * 2);
+            }
+            checksums[index] = world.checksum();
+        }
+    }
+
+    // Sets up tick 'tick' for replay: the world size and the snapshot to pass to world.tick()
+    public void apply(int tick, InputSnapshot input, World world) {
+        world.setSize(widths[tick], heights[tick]);
+        input.set(down[tick], pressed[tick], released[tick]);
+    }
+
+    // Checksum recorded after 'ticksDone' ticks, or null if none was recorded at that point
+    public Long checksumAfter(int ticksDone) {
+        if (ticksDone == 0 || ticksDone % CHECKSUM_INTERVAL != 0 || ticksDone > ticks) {
+            return null;
+        }
+        return checksums[ticksDone / CHECKSUM_INTERVAL - 1];
+    }
+
+    public synchronized void write(String path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(level);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(spawnX);
+            out.writeInt(spawnY);
+            out.writeInt(initialEntities);
+            out.writeInt(spawnBatch);
+
+            int currentWidth = -1, currentHeight = -1;
+            int t = 0;
+            while (t < ticks) {
+                if (widths[t] != currentWidth || heights[t] != currentHeight) {
+                    currentWidth = widths[t];
+                    currentHeight = heights[t];
+                    writeVarint(out, SIZE);
+                    writeVarint(out, currentWidth);
+                    writeVarint(out, currentHeight);
+                }
+                // The run ends at a change of snapshot or size, or right after a checksum point
+                int end = t + 1;
+                while (end < ticks && down[end] == down[t] && pressed[end] == pressed[t] && released[end] == released[t]
+                        && widths[end] == currentWidth && heights[end] == currentHeight && end % CHECKSUM_INTERVAL != 0) {
+                    end++;
+                }
+                writeVarint(out, RUN);
+                writeVarint(out, end - t);
+                writeVarint(out, down[t]);
+                writeVarint(out, pressed[t]);
+                writeVarint(out, released[t]);
+                t = end;
+                if (t % CHECKSUM_INTERVAL == 0) {
+                    long checksum = checksums[t / CHECKSUM_INTERVAL - 1];
+                    writeVarint(out, CHECKSUM);
+                    writeVarint(out, t);
+                    writeVarint(out, (checksum << 1) ^ (checksum >> 63)); // Zigzag, so negative values stay short
+                }
+            }
+            writeVarint(out, END);
+        }
+    }
+
+    public static InputRecording read(String path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not an input recording: " + path);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported input recording version " + version + ": " + path);
+            }
+            InputRecording recording = new InputRecording(in.readUTF(), in.readInt(), in.readInt(), in.readInt(),
+                    in.readInt(), in.readInt(), in.readInt());
+
+            InputSnapshot snapshot = new InputSnapshot();
+            int currentWidth = recording.width, currentHeight = recording.height;
+            while (true) {
+                int tag = (int) readVarint(in);
+                if (tag == END) {
+                    break;
+                } else if (tag == SIZE) {
+                    currentWidth = (int) readVarint(in);
+                    currentHeight = (int) readVarint(in);
+                } else if (tag == RUN) {
+                    int count = (int) readVarint(in);
+                    snapshot.set((int) readVarint(in), (int) readVarint(in), (int) readVarint(in));
+                    for (int i = 0; i < count; i++) {
+                        recording.append(snapshot, currentWidth, currentHeight);
+                    }
+                } else if (tag == CHECKSUM) {
+                    int tick = (int) readVarint(in);
+                    long zigzag = readVarint(in);
+                    int index = tick / CHECKSUM_INTERVAL - 1;
+                    if (index >= recording.checksums.length) {
+                        recording.checksums = Arrays.copyOf(recording.checksums, Math.max(index + 1, recording.checksums.length * 2));
+                    }
+                    recording.checksums[index] = (zigzag >>> 1) ^ -(zigzag & 1);
+                } else {
+                    throw new IOException("Corrupt input recording (record type " + tag + "): " + path);
+                }
+            }
+            return recording;
+        }
+    }
+
+    private void append(InputSnapshot snapshot, int width, int height) {
+        if (ticks == down.length) {
+            int capacity = ticks * 2;
+            down = Arrays.copyOf(down, capacity);
+            pressed = Arrays.copyOf(pressed, capacity);
+            released = Arrays.copyOf(released, capacity);
+            widths = Arrays.copyOf(widths, capacity);
+            heights = Arrays.copyOf(heights, capacity);
+        }
+        down[ticks] = snapshot.getDown();
+        pressed[ticks] = snapshot.getPressed();
+        released[ticks] = snapshot.getReleased();
+        widths[ticks] = width;
+        heights[ticks] = height;
+        ticks++;
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Truncated input recording");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt varint in input recording");
+    }
+
+    public String getLevel() {
+        return level;
+    }
+
+    public int getTicks() {
+        return ticks;
+    }
+}
@@ -0,0 +1,104 @@
+import java.awt.event.KeyEvent;
+
+// State of the game's buttons for one simulation tick, built by the game thread from the InputQueue
+public class InputSnapshot {
+    public static final int LEFT = 1;
+    public static final int RIGHT = 1 << 1;
+    public static final int DOWN = 1 << 2;
+    public static final int JUMP = 1 << 3;
+    public static final int ATTACK = 1 << 4;
+    public static final int DEBUG = 1 << 5;
+    public static final int PROFILER = 1 << 6; // Frame-time overlay
+    public static final int PROFILE_DUMP = 1 << 7; // Write the profiler's samples to disk
+    public static final int SPAWN = 1 << 8; // Debug: spawn a batch of walkers
+    public static final int PARTICLES = 1 << 9; // Debug: fill the particle pool
+    public static final int REWIND = 1 << 10; // Held: run time backwards
+    public static final int SAVE_STATE = 1 << 11; // Write the world state to the quicksave file
+    public static final int LOAD_STATE = 1 << 12; // Load it back
+
+    private int down = 0; // Buttons held at the end of the tick
+    private int pressed = 0; // Buttons that got a press (or key repeat) during the tick
+    private int released = 0; // Buttons released during the tick
+
+    // Maps a key to its button bit, 0 if the game doesn't use the key
+    public static int buttonFor(int keyCode) {
+        switch (keyCode) {
+            case KeyEvent.VK_A: return LEFT;
+            case KeyEvent.VK_D: return RIGHT;
+            case KeyEvent.VK_S: return DOWN;
+            case KeyEvent.VK_W:
+            case KeyEvent.VK_SPACE: return JUMP;
+            case KeyEvent.VK_J: return ATTACK;
+            case KeyEvent.VK_F3: return DEBUG;
+            case KeyEvent.VK_F4: return PROFILER;
+            case KeyEvent.VK_F5: return PROFILE_DUMP;
+            case KeyEvent.VK_F6: return SPAWN;
+            case KeyEvent.VK_F7: return PARTICLES;
+            case KeyEvent.VK_BACK_SPACE: return REWIND;
+            case KeyEvent.VK_F8: return SAVE_STATE;
+            case KeyEvent.VK_F9: return LOAD_STATE;
+            default: return 0;
+        }
+    }
+
+    // Forgets the previous tick's edges; held buttons stay held
+    public void beginTick() {
+        pressed = 0;
+        released = 0;
+    }
+
+    public void apply(int event) {
+        int button = buttonFor(InputQueue.keyCode(event));
+        if (button == 0) {
+            return;
+        }
+        if (InputQueue.isPress(event)) {
+            down |= button;
+            pressed |= button;
+        } else {
+            down &= ~button;
+            released |= button;
+        }
+    }
+
+    // Sets the whole snapshot directly (scripted or recorded input)
+    public void set(int down, int pressed, int released) {
+        this.down = down;
+        this.pressed = pressed;
+        this.released = released;
+    }
+
+    // Empties the queue into this snapshot
+    public void drain(InputQueue queue) {
+        beginTick();
+        int event;
+        while ((event = queue.poll()) != InputQueue.EMPTY) {
+            apply(event);
+        }
+    }
+
+    public boolean isDown(int button) {
+        return (down & button) != 0;
+    }
+
+    public boolean wasPressed(int button) {
+        return (pressed & button) != 0;
+    }
+
+    public boolean wasReleased(int button) {
+        return (released & button) != 0;
+    }
+
+    // Whole masks, for recording
+    public int getDown() {
+        return down;
+    }
+
+    public int getPressed() {
+        return pressed;
+    }
+
+    public int getReleased() {
+        return released;
+    }
+}
@@ -0,0 +1,55 @@
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+// One fixed-size vertical slice of a streamed level: its platforms plus its art and platforms pre-drawn
+public class LevelChunk {
+    private final int index; // Chunk number, counted from the left edge of the world
+    private final int originX; // World x of the chunk's left edge
+    private final ArrayList<Platform> platforms; // Platforms owned by this chunk (their left edge is in it)
+    private final ArrayList<Platform> borrowed; // Neighbours' platforms that reach into this chunk
+    private final long[] borrowedSources; // Where each borrowed platform is owned (LevelIO.sourceOf)
+    private final BufferedImage surface; // Art and visible platforms, null if the chunk has nothing to draw
+    private final long sizeBytes; // Rough memory cost, counted against the streamer's budget
+
+    long lastUsed; // Streamer tick when the chunk was last inside the camera window (for LRU eviction)
+
+    public LevelChunk(int index, int originX, ArrayList<Platform> platforms, ArrayList<Platform> borrowed,
+                      long[] borrowedSources, BufferedImage surface) {
+        this.index = index;
+        this.originX = originX;
+        this.platforms = platforms;
+        this.borrowed = borrowed;
+        this.borrowedSources = borrowedSources;
+        this.surface = surface;
+        long imageBytes = surface != null ? (long) surface.getWidth() * surface.getHeight() * 4 : 0;
+        this.sizeBytes = imageBytes + (platforms.size() + borrowed.size()) * 64L;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getOriginX() {
+        return originX;
+    }
+
+    public ArrayList<Platform> getPlatforms() {
+        return platforms;
+    }
+
+    public ArrayList<Platform> getBorrowed() {
+        return borrowed;
+    }
+
+    public long[] getBorrowedSources() {
+        return borrowedSources;
+    }
+
+    public BufferedImage getSurface() {
+        return surface;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+}
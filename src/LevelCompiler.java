@@ -0,0 +1,84 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Offline converter from the JSON level format to the compiled .wlvl format.
+// Usage: java -cp out:lib/json-20250107.jar LevelCompiler Level1.json [Level1.wlvl]
+//        java -cp out:lib/json-20250107.jar LevelCompiler --chunks Level1.json <outputDir> [chunkWidth] [chunkHeight]
+//
+// Chunked output is what ChunkStreamer reads. Art for a chunk goes next to it as chunk_<n>.png.
+public class LevelCompiler {
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 3 && args[0].equals("--chunks")) {
+            int chunkWidth = args.length > 3 ? Integer.parseInt(args[3]) : 1920;
+            int chunkHeight = args.length > 4 ? Integer.parseInt(args[4]) : 1080;
+            compileChunks(args[1], args[2], chunkWidth, chunkHeight);
+            return;
+        }
+        if (args.length < 1) {
+            System.err.println("Usage: LevelCompiler <level.json> [output.wlvl]");
+            System.err.println("       LevelCompiler --chunks <level.json> <outputDir> [chunkWidth] [chunkHeight]");
+            System.exit(1);
+        }
+        String input = args[0];
+        String output = args.length > 1 ? args[1] : LevelIO.compiledPath(input);
+
+        ArrayList<Platform> platforms = LevelIO.loadJson(input);
+        LevelIO.writeBinary(platforms, output);
+        System.out.println("Compiled " + platforms.size() + " platforms: " + input + " -> " + output);
+    }
+
+    // Splits a level into fixed-width chunks. A platform belongs to the chunk its left edge (walls included)
+    // is in; every other chunk it reaches into gets a borrowed copy, so the chunk is drawn complete and the
+    // platform still collides when its owner chunk isn't resident.
+    public static void compileChunks(String input, String outputDir, int chunkWidth, int chunkHeight) throws IOException {
+        ArrayList<Platform> platforms = LevelIO.loadJson(input);
+
+        int chunkCount = 1;
+        for (Platform platform : platforms) {
+            chunkCount = Math.max(chunkCount, chunkOf(platform.getMaxX() - 1, chunkWidth) + 1);
+        }
+
+        List<ArrayList<Platform>> owned = new ArrayList<>();
+        List<ArrayList<Platform>> borrowed = new ArrayList<>();
+        List<ArrayList<Long>> sources = new ArrayList<>(); // Per chunk: where each borrowed platform is owned
+        for (int i = 0; i < chunkCount; i++) {
+            owned.add(new ArrayList<>());
+            borrowed.add(new ArrayList<>());
+            sources.add(new ArrayList<>());
+        }
+        for (Platform platform : platforms) {
+            int first = chunkOf(platform.getMinX(), chunkWidth);
+            int last = chunkOf(platform.getMaxX() - 1, chunkWidth);
+            long source = LevelIO.sourceOf(first, owned.get(first).size()); // Owned records come first in the file
+            owned.get(first).add(platform);
+            for (int i = first + 1; i <= last; i++) {
+                borrowed.get(i).add(platform);
+                sources.get(i).add(source);
+            }
+        }
+
+        File directory = new File(outputDir);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create " + directory);
+        }
+        for (int i = 0; i < chunkCount; i++) {
+            long[] chunkSources = sources.get(i).stream().mapToLong(Long::longValue).toArray();
+            LevelIO.writeBinary(owned.get(i), borrowed.get(i), chunkSources,
+                    new File(directory, "chunk_" + i + ".wlvl").getPath());
+        }
+        try (Writer writer = new FileWriter(new File(directory, "chunks.txt"))) {
+            writer.write("chunkWidth=" + chunkWidth + "\n");
+            writer.write("chunkHeight=" + chunkHeight + "\n");
+            writer.write("chunkCount=" + chunkCount + "\n");
+        }
+        System.out.println("Compiled " + platforms.size() + " platforms into " + chunkCount + " chunks: " + input + " -> " + outputDir);
+    }
+
+    private static int chunkOf(int x, int chunkWidth) {
+        return Math.max(0, Math.floorDiv(x, chunkWidth));
+    }
+}
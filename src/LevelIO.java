@@ -0,0 +1,204 @@
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads and writes levels. JSON is the authoring format; .wlvl is the compiled binary format:
+//
+//   header:  int magic ('WLVL'), int version, int platformCount
+//   records: int x, int y, int width, int height, int flags   (20 bytes each, little endian)
+//   sources: int ownerChunk, int ownerRecord   (one per borrowed record, in record order; version 2 and up)
+//
+// flags: bit 0 = isObstacle, bit 1 = visible, bit 2 = hasLeftWall, bit 3 = hasRightWall,
+//        bit 4 = borrowed (chunk files only: a neighbouring chunk's platform that reaches into this chunk;
+//                drawn with this chunk, and collided while either chunk is resident)
+//
+// A borrowed record's source is the owner chunk and the index of the platform's record in that chunk's file,
+// so a platform is known by where it comes from rather than by its values: two identical platforms in the
+// level stay two. Version 1 files have no sources and are still read.
+public class LevelIO {
+    public static final int MAGIC = 0x4C564C57; // "WLVL" read as a little endian int
+    public static final int VERSION = 2;
+    public static final int HEADER_BYTES = 12;
+    public static final int RECORD_BYTES = 20;
+
+    public static final int FLAG_OBSTACLE = 1;
+    public static final int FLAG_VISIBLE = 1 << 1;
+    public static final int FLAG_LEFT_WALL = 1 << 2;
+    public static final int FLAG_RIGHT_WALL = 1 << 3;
+    public static final int FLAG_BORROWED = 1 << 4;
+
+    private LevelIO() {}
+
+    // Loads a level by path. For a .json level, a compiled .wlvl next to it is used instead when it is up to date.
+    public static ArrayList<Platform> load(String path) throws IOException {
+        if (path.endsWith(".wlvl")) {
+            return loadBinary(path);
+        }
+        File json = new File(path);
+        File compiled = new File(compiledPath(path));
+        if (compiled.isFile() && compiled.lastModified() >= json.lastModified()) {
+            return loadBinary(compiled.getPath());
+        }
+        return loadJson(path);
+    }
+
+    public static String compiledPath(String jsonPath) {
+        int dot = jsonPath.lastIndexOf('.');
+        return (dot > 0 ? jsonPath.substring(0, dot) : jsonPath) + ".wlvl";
+    }
+
+    public static ArrayList<Platform> loadJson(String path) throws IOException {
+        // Read the JSON file as a string
+        String jsonContent = new String(Files.readAllBytes(Paths.get(path)));
+
+        // Parse the JSON array
+        JSONArray platformArray = new JSONArray(jsonContent);
+        ArrayList<Platform> platforms = new ArrayList<>(platformArray.length());
+
+        // Iterate through the array and create Platform objects
+        for (int i = 0; i < platformArray.length(); i++) {
+            JSONObject platformData = platformArray.getJSONObject(i);
+            platforms.add(new Platform(
+                    platformData.getInt("x"),
+                    platformData.getInt("y"),
+                    platformData.getInt("width"),
+                    platformData.getInt("height"),
+                    platformData.getBoolean("isObstacle"),
+                    platformData.getBoolean("visible"),
+                    platformData.optBoolean("hasLeftWall", false), // Default to false if not specified
+                    platformData.optBoolean("hasRightWall", false) // Default to false if not specified
+            ));
+        }
+        return platforms;
+    }
+
+    public static ArrayList<Platform> loadBinary(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            // Map the file instead of reading it: the OS pages it in and there is no copy or text parse
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return readBinary(buffer);
+        }
+    }
+
+    public static ArrayList<Platform> readBinary(ByteBuffer buffer) throws IOException {
+        ArrayList<Platform> platforms = new ArrayList<>();
+        readBinary(buffer, platforms, null);
+        return platforms;
+    }
+
+    // Reads a compiled level into 'platforms'. Borrowed records go to 'borrowed', or are skipped if it is null.
+    // Returns the source of each borrowed record (see sourceOf), in order; null when borrowed records are
+    // skipped or the file is version 1.
+    public static long[] readBinary(ByteBuffer buffer, ArrayList<Platform> platforms, ArrayList<Platform> borrowed)
+            throws IOException {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a compiled level file");
+        }
+        int version = buffer.getInt();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("Unsupported level version " + version);
+        }
+        int count = buffer.getInt();
+        if (count < 0 || buffer.remaining() < (long) count * RECORD_BYTES) {
+            throw new IOException("Truncated level file");
+        }
+
+        platforms.ensureCapacity(platforms.size() + count);
+        int borrowedCount = 0;
+        for (int i = 0; i < count; i++) {
+            int x = buffer.getInt();
+            int y = buffer.getInt();
+            int width = buffer.getInt();
+            int height = buffer.getInt();
+            int flags = buffer.getInt();
+            if ((flags & FLAG_BORROWED) != 0) {
+                borrowedCount++;
+            }
+            ArrayList<Platform> target = (flags & FLAG_BORROWED) != 0 ? borrowed : platforms;
+            if (target == null) {
+                continue;
+            }
+            target.add(new Platform(x, y, width, height,
+                    (flags & FLAG_OBSTACLE) != 0,
+                    (flags & FLAG_VISIBLE) != 0,
+                    (flags & FLAG_LEFT_WALL) != 0,
+                    (flags & FLAG_RIGHT_WALL) != 0));
+        }
+
+        if (borrowed == null || version < 2) {
+            return null;
+        }
+        if (buffer.remaining() < (long) borrowedCount * 8) {
+            throw new IOException("Truncated level file");
+        }
+        long[] sources = new long[borrowedCount];
+        for (int i = 0; i < borrowedCount; i++) {
+            sources[i] = sourceOf(buffer.getInt(), buffer.getInt());
+        }
+        return sources;
+    }
+
+    // Identifies a platform in a chunked level: its owner chunk and its record in that chunk's file
+    public static long sourceOf(int chunk, int record) {
+        return (long) chunk << 32 | (record & 0xFFFFFFFFL);
+    }
+
+    public static void writeBinary(List<Platform> platforms, String path) throws IOException {
+        writeBinary(platforms, List.of(), new long[0], path);
+    }
+
+    // Chunk files: borrowedSources holds the source (see sourceOf) of each borrowed platform
+    public static void writeBinary(List<Platform> platforms, List<Platform> borrowed, long[] borrowedSources,
+                                   String path) throws IOException {
+        int count = platforms.size() + borrowed.size();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + count * RECORD_BYTES + borrowed.size() * 8)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(count);
+        for (Platform platform : platforms) {
+            putRecord(buffer, platform, flagsOf(platform));
+        }
+        for (Platform platform : borrowed) {
+            putRecord(buffer, platform, flagsOf(platform) | FLAG_BORROWED);
+        }
+        for (int i = 0; i < borrowed.size(); i++) {
+            buffer.putInt((int) (borrowedSources[i] >> 32)).putInt((int) borrowedSources[i]);
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private static void putRecord(ByteBuffer buffer, Platform platform, int flags) {
+        buffer.putInt(platform.getX())
+                .putInt(platform.getY())
+                .putInt(platform.getWidth())
+                .putInt(platform.getHeight())
+                .putInt(flags);
+    }
+
+    public static int flagsOf(Platform platform) {
+        int flags = 0;
+        if (platform.isObstacle()) flags |= FLAG_OBSTACLE;
+        if (platform.isVisible()) flags |= FLAG_VISIBLE;
+        if (platform.hasLeftWall()) flags |= FLAG_LEFT_WALL;
+        if (platform.hasRightWall()) flags |= FLAG_RIGHT_WALL;
+        return flags;
+    }
+}
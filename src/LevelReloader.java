@@ -0,0 +1,212 @@
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Reloads the level while the game runs (-Dwitch.hotReload=true). A background thread watches the level
+// file (and its compiled .wlvl), re-reads it when it changes and diffs it against the level it sent last:
+// platforms that are still there keep their instance, changed ones are replaced and the rest are added or
+// removed. The game thread picks the finished diffs up at the start of a tick and applies them in one go;
+// diffs address the live platform list by index, so applying one costs in proportion to what changed
+// (plus a shift of the list after a removal), never a pass over the whole level.
+public class LevelReloader {
+    private static final long SETTLE_MILLIS = 100; // Editors often write a file in several steps
+
+    // One reload: what the game thread has to change in the live level
+    public static class Diff {
+        private int[] indices = new int[0]; // Positions in the live platform list that change, ascending
+        private Platform[] previous = new Platform[0]; // Platform at each of those positions now
+        private Platform[] replacements = new Platform[0]; // What takes its place; null = removed
+        private final ArrayList<Platform> added = new ArrayList<>(); // Appended after the edits
+        private int updated, removed;
+        private long diffNanos;
+
+        public int[] getIndices() {
+            return indices;
+        }
+
+        public Platform[] getPrevious() {
+            return previous;
+        }
+
+        public Platform[] getReplacements() {
+            return replacements;
+        }
+
+        public ArrayList<Platform> getAdded() {
+            return added;
+        }
+
+        public boolean isEmpty() {
+            return indices.length == 0 && added.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return "+" + added.size() + " -" + removed + " ~" + updated + " (diffed in "
+                    + String.format("%.1f", diffNanos / 1e6) + " ms)";
+        }
+    }
+
+    private final Path path;
+    private final Path compiledPath;
+    private final WatchService watcher;
+    private List<Platform> current; // Live platform list (same order) once the diffs sent so far are applied;
+                                    // only the watcher thread touches it
+    private final ConcurrentLinkedQueue<Diff> finished = new ConcurrentLinkedQueue<>(); // Watcher -> game thread
+
+    // platforms: the level as loaded, before any reload
+    public LevelReloader(String path, List<Platform> platforms) throws IOException {
+        this.path = Paths.get(path).toAbsolutePath();
+        this.compiledPath = Paths.get(LevelIO.compiledPath(path)).toAbsolutePath();
+        this.current = new ArrayList<>(platforms);
+
+        watcher = FileSystems.getDefault().newWatchService();
+        this.path.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY); // Saving by rename shows up as a create
+
+        Thread thread = new Thread(this::watch, "level-watcher");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY); // Never compete with the game thread
+        thread.start();
+    }
+
+    // Called by the game thread once per tick, at the tick boundary. Returns the reloads that came in, in order.
+    public List<Diff> poll() {
+        List<Diff> diffs = null;
+        Diff diff;
+        while ((diff = finished.poll()) != null) {
+            if (diffs == null) {
+                diffs = new ArrayList<>(1);
+            }
+            diffs.add(diff);
+        }
+        return diffs != null ? diffs : List.of();
+    }
+
+    public void shutdown() {
+        try {
+            watcher.close(); // Ends the watcher thread
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                boolean changed = isLevelChange(key);
+                key.reset();
+                if (!changed) {
+                    continue;
+                }
+
+                // Let the write finish, and fold whatever else it triggered into this reload
+                Thread.sleep(SETTLE_MILLIS);
+                while ((key = watcher.poll()) != null) {
+                    isLevelChange(key);
+                    key.reset();
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Shut down
+        }
+    }
+
+    private boolean isLevelChange(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path name) {
+                Path file = path.getParent().resolve(name);
+                changed |= file.equals(path) || file.equals(compiledPath);
+            }
+        }
+        return changed;
+    }
+
+    private void reload() {
+        List<Platform> next;
+        try {
+            next = LevelIO.load(path.toString()); // Picks the compiled level when it is the newer one
+        } catch (Exception e) {
+            // Most likely caught halfway through a save; the next write triggers another reload
+            System.err.println("Error reloading level, keeping the current one: " + e.getMessage());
+            return;
+        }
+        long start = System.nanoTime();
+        Diff diff = new Diff();
+        current = diff(current, next, diff);
+        diff.diffNanos = System.nanoTime() - start;
+        if (!diff.isEmpty()) {
+            finished.add(diff);
+        }
+    }
+
+    // Fills in the changes that turn previous into next, and returns the platform list as it will be once
+    // World.replacePlatforms and addPlatforms have applied them: unchanged platforms keep their instance
+    // and place, edited ones are replaced in place, removed ones drop out and new ones go at the end
+    static List<Platform> diff(List<Platform> previous, List<Platform> next, Diff diff) {
+        // Platforms with the same values are the same platform, wherever they moved to in the file
+        HashMap<PlatformKey, ArrayDeque<Platform>> unchanged = new HashMap<>(previous.size() * 2);
+        for (Platform platform : previous) {
+            unchanged.computeIfAbsent(new PlatformKey(platform), key -> new ArrayDeque<>(1)).add(platform);
+        }
+        ArrayList<Platform> unmatched = new ArrayList<>();
+        IdentityHashMap<Platform, Boolean> kept = new IdentityHashMap<>(next.size() * 2);
+        for (Platform platform : next) {
+            ArrayDeque<Platform> same = unchanged.get(new PlatformKey(platform));
+            Platform old = same != null ? same.poll() : null;
+            if (old != null) {
+                kept.put(old, Boolean.TRUE);
+            } else {
+                unmatched.add(platform);
+            }
+        }
+
+        // What's left on both sides was edited, added or removed. Edits are paired up in file order, so a
+        // platform that was moved or resized is replaced where it is rather than removed and added.
+        int changed = previous.size() - kept.size();
+        diff.indices = new int[changed];
+        diff.previous = new Platform[changed];
+        diff.replacements = new Platform[changed];
+        ArrayList<Platform> result = new ArrayList<>(next.size());
+        int paired = 0;
+        int change = 0;
+        for (int i = 0; i < previous.size(); i++) {
+            Platform old = previous.get(i);
+            if (kept.containsKey(old)) {
+                result.add(old);
+                continue;
+            }
+            diff.indices[change] = i;
+            diff.previous[change] = old;
+            if (paired < unmatched.size()) {
+                Platform replacement = unmatched.get(paired++);
+                diff.replacements[change] = replacement;
+                result.add(replacement);
+                diff.updated++;
+            } else {
+                diff.removed++;
+            }
+            change++;
+        }
+        for (int i = paired; i < unmatched.size(); i++) {
+            diff.added.add(unmatched.get(i));
+            result.add(unmatched.get(i));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,48 @@
+import javax.swing.JComponent;
+import java.awt.Graphics;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
+
+// Swing fallback for ActiveRenderer: the game thread draws each frame into an offscreen image and asks the
+// panel to repaint, and paintComponent (on the EDT) only blits the newest finished frame. The EDT never
+// reads the world, so the game thread can tick it without locks. Two images take turns: one being drawn,
+// one on screen.
+public class OffscreenRenderer {
+    private final JComponent panel;
+    private BufferedImage back; // Drawn by the game thread
+    private BufferedImage front; // Newest finished frame, blitted by the EDT; swapped under the lock
+
+    public OffscreenRenderer(JComponent panel) {
+        this.panel = panel;
+    }
+
+    // Game thread: draws a frame of the panel's size and queues it for the screen
+    public void renderFrame(int width, int height, Consumer<Graphics> scene) {
+        if (width <= 0 || height <= 0) {
+            return; // Not laid out yet
+        }
+        if (back == null || back.getWidth() != width || back.getHeight() != height) {
+            back = CompatibleImages.create(width, height, Transparency.OPAQUE);
+        }
+        Graphics g = back.createGraphics();
+        try {
+            scene.accept(g);
+        } finally {
+            g.dispose();
+        }
+        synchronized (this) {
+            BufferedImage shown = front;
+            front = back;
+            back = shown; // The EDT is done with it: it only blits while holding the lock
+        }
+        panel.repaint();
+    }
+
+    // EDT, from paintComponent
+    public synchronized void paint(Graphics g) {
+        if (front != null) {
+            g.drawImage(front, 0, 0, null);
+        }
+    }
+}
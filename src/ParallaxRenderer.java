@@ -0,0 +1,113 @@
+import javax.imageio.ImageIO;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Draws any number of horizontally repeating background layers with a parallax effect.
+// Each layer is scaled to the viewport once, then every frame only copies the visible spans 1:1.
+public class ParallaxRenderer {
+    private final BufferedImage[] layers; // Source images, back to front
+    private final double[] speeds; // Scroll speed of each layer (slower to faster)
+
+    private BufferedImage[] scaledLayers; // Layers at viewport size, rebuilt when the viewport changes
+    private int scaledWidth, scaledHeight;
+
+    public ParallaxRenderer(BufferedImage[] layers, double[] speeds) {
+        this.layers = layers;
+        this.speeds = speeds;
+    }
+
+    // Loads every numbered PNG in a directory (1.png, 2.png, ...) as a layer; layer n scrolls at speed n
+    public static ParallaxRenderer fromDirectory(String directory) {
+        ArrayList<BufferedImage> images = new ArrayList<>();
+        for (File file : layerFiles(directory)) {
+            try {
+                images.add(ImageIO.read(file));
+            } catch (IOException e) {
+                System.err.println("Error loading background layer: " + file);
+                e.printStackTrace();
+            }
+        }
+        return fromLayers(images);
+    }
+
+    // The layer files of a directory, back to front
+    public static File[] layerFiles(String directory) {
+        File[] files = new File(directory).listFiles((dir, name) -> name.toLowerCase().endsWith(".png"));
+        if (files == null) {
+            System.err.println("Error loading background layers: " + directory);
+            return new File[0];
+        }
+        Arrays.sort(files, Comparator.comparingInt(ParallaxRenderer::layerNumber).thenComparing(File::getName));
+        return files;
+    }
+
+    // Layers already decoded (null entries, e.g. failed loads, are skipped); layer n scrolls at speed n
+    public static ParallaxRenderer fromLayers(List<BufferedImage> images) {
+        ArrayList<BufferedImage> layers = new ArrayList<>();
+        for (BufferedImage image : images) {
+            if (image != null) {
+                layers.add(image);
+            }
+        }
+        double[] speeds = new double[layers.size()];
+        for (int i = 0; i < speeds.length; i++) {
+            speeds[i] = i + 1;
+        }
+        return new ParallaxRenderer(layers.toArray(new BufferedImage[0]), speeds);
+    }
+
+    private static int layerNumber(File file) {
+        String name = file.getName();
+        try {
+            return Integer.parseInt(name.substring(0, name.length() - 4));
+        } catch (NumberFormatException e) {
+            return Integer.MAX_VALUE; // Non numbered files go last, by name
+        }
+    }
+
+    public void draw(Graphics g, double scroll, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        if (scaledLayers == null || scaledWidth != width || scaledHeight != height) {
+            rescale(width, height);
+        }
+
+        for (int i = 0; i < scaledLayers.length; i++) {
+            // Snap to whole pixels so the layers don't shimmer, then wrap into [0, width)
+            int offset = (int) Math.floorMod(Math.round(scroll * speeds[i]), (long) width);
+            BufferedImage layer = scaledLayers[i];
+
+            // The tile starting at 'offset' covers [offset, width); its left neighbour covers [0, offset)
+            g.drawImage(layer, offset, 0, width, height, 0, 0, width - offset, height, null);
+            if (offset > 0) {
+                g.drawImage(layer, 0, 0, offset, height, width - offset, 0, width, height, null);
+            }
+        }
+    }
+
+    private void rescale(int width, int height) {
+        scaledLayers = new BufferedImage[layers.length];
+        for (int i = 0; i < layers.length; i++) {
+            BufferedImage scaled = CompatibleImages.create(width, height, layers[i].getTransparency());
+            Graphics2D g2d = scaled.createGraphics();
+            g2d.drawImage(layers[i], 0, 0, width, height, null);
+            g2d.dispose();
+            scaledLayers[i] = scaled;
+        }
+        scaledWidth = width;
+        scaledHeight = height;
+    }
+
+    public int getLayerCount() {
+        return layers.length;
+    }
+}
@@ -0,0 +1,58 @@
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+// Draws every particle by writing pixels straight into the int[] of one view sized ARGB image, then
+// blits that image once. 50k particles cost 50k small array fills instead of 50k drawImage/fillRect calls.
+public class ParticleRenderer {
+    private static final int[] SIZES = {7, 3, 5}; // Square size in pixels by particle type: spell, spark, puff
+    private static final int[] COLORS = {0x7FD6FF, 0xFFE08A, 0xE6EEF5}; // RGB by particle type
+
+    private BufferedImage layer;
+    private int[] pixels; // The layer's backing array
+    private int width, height;
+    private int dirtyTop = 0, dirtyBottom = 0; // Rows written last frame, cleared before the next one
+
+    public void draw(Graphics g, ParticleSystem particles, int cameraOffset, int viewWidth, int viewHeight) {
+        if (viewWidth <= 0 || viewHeight <= 0) {
+            return;
+        }
+        if (layer == null || width != viewWidth || height != viewHeight) {
+            width = viewWidth;
+            height = viewHeight;
+            layer = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            pixels = ((DataBufferInt) layer.getRaster().getDataBuffer()).getData();
+            dirtyTop = dirtyBottom = 0;
+        }
+
+        Arrays.fill(pixels, dirtyTop * width, dirtyBottom * width, 0);
+        int top = height, bottom = 0;
+        for (int i = 0; i < particles.size(); i++) {
+            int type = particles.getType(i);
+            int size = SIZES[type];
+            int x0 = (int) particles.getX(i) - cameraOffset - size / 2;
+            int y0 = (int) particles.getY(i) - size / 2;
+            int x1 = Math.min(width, x0 + size), y1 = Math.min(height, y0 + size);
+            x0 = Math.max(0, x0);
+            y0 = Math.max(0, y0);
+            if (x0 >= x1 || y0 >= y1) {
+                continue; // Off screen
+            }
+            int alpha = Math.min(255, particles.getLife(i) * 12); // Fade out over the last ~20 ticks
+            int argb = alpha << 24 | COLORS[type];
+            for (int y = y0; y < y1; y++) {
+                Arrays.fill(pixels, y * width + x0, y * width + x1, argb);
+            }
+            top = Math.min(top, y0);
+            bottom = Math.max(bottom, y1);
+        }
+        dirtyTop = Math.min(top, bottom);
+        dirtyBottom = bottom;
+
+        if (dirtyBottom > dirtyTop) {
+            // Only the band that has particles in it
+            g.drawImage(layer, cameraOffset, dirtyTop, cameraOffset + width, dirtyBottom, 0, dirtyTop, width, dirtyBottom, null);
+        }
+    }
+}
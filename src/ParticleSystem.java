@@ -0,0 +1,305 @@
+// Spells, hit sparks and cloud puffs in a fixed pool of parallel primitive arrays. Spawning appends,
+// despawning moves the last particle into the freed slot, so both are O(1) and nothing is allocated
+// after construction. The whole pool is integrated and collided in one loop per tick.
+public class ParticleSystem {
+    public static final int SPELL = 0; // Flies straight, bursts into sparks on the first platform or wall it hits
+    public static final int SPARK = 1; // Falls, bounces off platform tops and walls
+    public static final int PUFF = 2; // Drifts up and slows down, passes through everything
+
+    private static final float GRAVITY = 0.4f;
+    private static final float BOUNCE = 0.45f; // Speed kept by a spark after a bounce
+    private static final int HIT_SPARKS = 16;
+
+    private final int capacity;
+    private int count = 0;
+    private final float[] x, y, velocityX, velocityY;
+    private final int[] life, type; // Ticks left, particle type
+
+    // Spells that hit something this tick; their sparks are spawned after the update loop, which must not
+    // see the pool reshuffled under it
+    private final float[] hitX = new float[256], hitY = new float[256];
+    private int hitCount = 0;
+
+    private static final float NO_HIT = 2; // entry() result when the move doesn't reach the box
+    private boolean entryVertical; // Set by entry(): the box was entered through its top or bottom
+
+    private long seed = 0x9E3779B97F4A7C15L; // Xorshift state for burst directions, so bursts are reproducible
+
+    public ParticleSystem(int capacity) {
+        this.capacity = capacity;
+        x = new float[capacity];
+        y = new float[capacity];
+        velocityX = new float[capacity];
+        velocityY = new float[capacity];
+        life = new int[capacity];
+        type = new int[capacity];
+    }
+
+    // Returns the particle's index, or -1 if the pool is full
+    public int spawn(int particleType, float spawnX, float spawnY, float speedX, float speedY, int ticks) {
+        if (count == capacity) {
+            return -1;
+        }
+        int i = count++;
+        x[i] = spawnX;
+        y[i] = spawnY;
+        velocityX[i] = speedX;
+        velocityY[i] = speedY;
+        life[i] = ticks;
+        type[i] = particleType;
+        return i;
+    }
+
+    // Spawns particles flying out of a point in random directions, at up to 'speed', living 'ticks' to 2 x 'ticks'
+    public void burst(int particleType, float centerX, float centerY, int amount, float speed, int ticks) {
+        for (int n = 0; n < amount && count < capacity; n++) {
+            float angle = (nextRandom() & 0xFFFF) / 65536f * (float) (2 * Math.PI); // StrictMath below: same bits on every CPU
+            float magnitude = speed * ((nextRandom() & 0xFFFF) / 65536f);
+            int lifetime = ticks + (int) ((nextRandom() & 0xFFFF) * (long) ticks >>> 16);
+            spawn(particleType, centerX, centerY, (float) StrictMath.cos(angle) * magnitude,
+                    (float) StrictMath.sin(angle) * magnitude, lifetime);
+        }
+    }
+
+    private long nextRandom() {
+        seed ^= seed << 13;
+        seed ^= seed >>> 7;
+        seed ^= seed << 17;
+        return seed;
+    }
+
+    private void remove(int i) {
+        int last = --count;
+        x[i] = x[last];
+        y[i] = y[last];
+        velocityX[i] = velocityX[last];
+        velocityY[i] = velocityY[last];
+        life[i] = life[last];
+        type[i] = type[last];
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    public void tick(PlatformGrid grid, PlatformGrid.Query query, int worldWidth, int worldHeight) {
+        hitCount = 0;
+        int i = 0;
+        while (i < count) {
+            if (--life[i] <= 0) {
+                remove(i); // The particle moved in from the end hasn't been updated yet, so stay on i
+                continue;
+            }
+
+            int particleType = type[i];
+            if (particleType == SPARK) {
+                velocityY[i] += GRAVITY;
+            } else if (particleType == PUFF) {
+                velocityX[i] *= 0.96f;
+                velocityY[i] = velocityY[i] * 0.96f - 0.03f;
+            }
+            float previousX = x[i], previousY = y[i];
+            x[i] += velocityX[i];
+            y[i] += velocityY[i];
+
+            if (x[i] < 0 || x[i] >= worldWidth || y[i] < 0) {
+                remove(i);
+                continue;
+            }
+            if (particleType != PUFF && collide(i, previousX, previousY, grid, query)) {
+                if (hitCount < hitX.length) {
+                    hitX[hitCount] = x[i];
+                    hitY[hitCount] = y[i];
+                    hitCount++;
+                }
+                remove(i);
+                continue;
+            }
+            if (y[i] >= worldHeight) {
+                if (particleType == SPARK) {
+                    y[i] = worldHeight - 1; // Bounce off the ground
+                    velocityY[i] = -velocityY[i] * BOUNCE;
+                } else {
+                    remove(i);
+                    continue;
+                }
+            }
+            i++;
+        }
+
+        for (int h = 0; h < hitCount; h++) {
+            burst(SPARK, hitX[h], hitY[h], HIT_SPARKS, 6f, 20);
+            burst(PUFF, hitX[h], hitY[h], 4, 1.5f, 30);
+        }
+    }
+
+    // Tests the particle's move this tick (previous to current position) against the platforms and walls
+    // around it, so fast particles can't skip over thin ones. Sparks bounce off the first surface they
+    // reach; returns true if a spell hit something.
+    private boolean collide(int i, float previousX, float previousY, PlatformGrid grid, PlatformGrid.Query query) {
+        float dx = x[i] - previousX, dy = y[i] - previousY;
+        int minX = (int) Math.floor(Math.min(previousX, x[i])), minY = (int) Math.floor(Math.min(previousY, y[i]));
+        int maxX = (int) Math.floor(Math.max(previousX, x[i])), maxY = (int) Math.floor(Math.max(previousY, y[i]));
+        grid.query(minX, minY, maxX - minX + 1, maxY - minY + 1, query);
+
+        float first = NO_HIT;
+        boolean vertical = false;
+        for (int p = 0; p < query.size(); p++) {
+            Platform platform = query.get(p);
+            if (maxX < platform.getMinX() || minX >= platform.getMaxX()
+                    || maxY < platform.getY() || minY >= platform.getY() + platform.getHeight()) {
+                continue; // Nowhere near it (walls don't reach above the top or below the bottom)
+            }
+            float t = entry(previousX, previousY, dx, dy,
+                    platform.getX(), platform.getY(), platform.getWidth(), platform.getHeight());
+            if (t < first) {
+                first = t;
+                vertical = entryVertical;
+            }
+            if (platform.hasLeftWall()) {
+                t = entry(previousX, previousY, dx, dy, platform.getLeftWallX(), platform.getWallY(),
+                        platform.getWallThickness(), platform.getWallHeight());
+                if (t < first) {
+                    first = t;
+                    vertical = entryVertical;
+                }
+            }
+            if (platform.hasRightWall()) {
+                t = entry(previousX, previousY, dx, dy, platform.getRightWallX(), platform.getWallY(),
+                        platform.getWallThickness(), platform.getWallHeight());
+                if (t < first) {
+                    first = t;
+                    vertical = entryVertical;
+                }
+            }
+        }
+        if (first == NO_HIT) {
+            return false;
+        }
+
+        // Back to just outside the surface where the move reached it
+        float contactX = previousX + dx * first - Math.signum(dx);
+        float contactY = previousY + dy * first - Math.signum(dy);
+        if (type[i] == SPELL) {
+            x[i] = contactX; // Where the sparks come from
+            y[i] = contactY;
+            return true;
+        }
+        x[i] = vertical ? previousX + dx * first : contactX;
+        y[i] = vertical ? contactY : previousY + dy * first;
+        if (vertical) {
+            velocityY[i] = -velocityY[i] * BOUNCE; // Top (or underside): bounce vertically
+            velocityX[i] *= 0.8f;
+        } else {
+            velocityX[i] = -velocityX[i] * BOUNCE; // Side or wall: bounce back
+        }
+        return false;
+    }
+
+    // Fraction of the move (dx, dy) from (x0, y0) at which it enters the box, or NO_HIT; a move that starts
+    // inside the box enters it at 0. Sets entryVertical when it enters through the top or bottom.
+    private float entry(float x0, float y0, float dx, float dy, int boxX, int boxY, int boxWidth, int boxHeight) {
+        float enter = 0, exit = 1;
+        boolean vertical = false;
+        if (dx == 0) {
+            if (x0 < boxX || x0 >= boxX + boxWidth) {
+                return NO_HIT;
+            }
+        } else {
+            float near = ((dx > 0 ? boxX : boxX + boxWidth) - x0) / dx;
+            float far = ((dx > 0 ? boxX + boxWidth : boxX) - x0) / dx;
+            enter = Math.max(enter, near);
+            exit = Math.min(exit, far);
+        }
+        if (dy == 0) {
+            if (y0 < boxY || y0 >= boxY + boxHeight) {
+                return NO_HIT;
+            }
+        } else {
+            float near = ((dy > 0 ? boxY : boxY + boxHeight) - y0) / dy;
+            float far = ((dy > 0 ? boxY + boxHeight : boxY) - y0) / dy;
+            if (near > enter) {
+                enter = near;
+                vertical = true;
+            }
+            exit = Math.min(exit, far);
+        }
+        if (enter >= exit) {
+            return NO_HIT;
+        }
+        entryVertical = vertical;
+        return enter;
+    }
+
+    // Snapshot support (see World.saveState). Taken between ticks, when no spell hits are pending.
+    // Without the pool only the burst seed is kept, and loading empties the pool.
+    public void saveState(SnapshotImage image, boolean withPool) {
+        image.putLong(seed);
+        image.putInt(withPool ? count : -1);
+        if (withPool) {
+            image.putFloats(x, count);
+            image.putFloats(y, count);
+            image.putFloats(velocityX, count);
+            image.putFloats(velocityY, count);
+            image.putInts(life, count);
+            image.putInts(type, count);
+        }
+    }
+
+    public void loadState(SnapshotImage image) {
+        seed = image.getLong();
+        int saved = image.getInt();
+        hitCount = 0;
+        if (saved < 0) {
+            count = 0; // Saved without the pool
+            return;
+        }
+        if (saved > capacity) {
+            throw new IllegalStateException("Snapshot has " + saved + " particles, the pool holds " + capacity);
+        }
+        count = saved;
+        image.getFloats(x, count);
+        image.getFloats(y, count);
+        image.getFloats(velocityX, count);
+        image.getFloats(velocityY, count);
+        image.getInts(life, count);
+        image.getInts(type, count);
+    }
+
+    public long checksum() {
+        long hash = 31 * seed + count; // The seed too: it decides every burst to come
+        for (int i = 0; i < count; i++) {
+            hash = 31 * hash + Float.floatToIntBits(x[i]);
+            hash = 31 * hash + Float.floatToIntBits(y[i]);
+            hash = 31 * hash + Float.floatToIntBits(velocityX[i]);
+            hash = 31 * hash + Float.floatToIntBits(velocityY[i]);
+            hash = 31 * hash + life[i];
+            hash = 31 * hash + type[i];
+        }
+        return hash;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public float getX(int i) {
+        return x[i];
+    }
+
+    public float getY(int i) {
+        return y[i];
+    }
+
+    public int getType(int i) {
+        return type[i];
+    }
+
+    public int getLife(int i) {
+        return life[i];
+    }
+}
@@ -11,6 +11,11 @@ public class Platform {
     private boolean hasRightWall = false;
     private int wallThickness = 10; // Thickness of the walls
 
+    // Collision boxes precomputed once, so collision checks don't have to allocate Rectangles
+    private int wallY, wallHeight; // Vertical extent shared by both walls
+    private int leftWallX, rightWallX;
+    private int minX, maxX; // Horizontal extent including the walls
+
     public Platform(int x, int y, int width, int height, boolean isObstacle, boolean visible,
                     boolean hasLeftWall, boolean hasRightWall) {
         this.x = x;
@@ -21,6 +26,13 @@ public class Platform {
         this.visible = visible;
         this.hasLeftWall = hasLeftWall;
         this.hasRightWall = hasRightWall;
+
+        this.wallY = y + 50;
+        this.wallHeight = height - 50;
+        this.leftWallX = x - wallThickness;
+        this.rightWallX = x + width;
+        this.minX = hasLeftWall ? leftWallX : x;
+        this.maxX = hasRightWall ? rightWallX + wallThickness : x + width;
     }
 
     public void draw(Graphics g) {
@@ -65,6 +77,74 @@ public class Platform {
         return null;
     }
 
+    // Same test as Rectangle.intersects, without the Rectangle
+    private static boolean overlaps(int ax, int ay, int aw, int ah, int bx, int by, int bw, int bh) {
+        if (aw <= 0 || ah <= 0 || bw <= 0 || bh <= 0) {
+            return false;
+        }
+        return ax < bx + bw && bx < ax + aw && ay < by + bh && by < ay + ah;
+    }
+
+    public boolean intersects(int x, int y, int width, int height) {
+        return overlaps(x, y, width, height, this.x, this.y, this.width, this.height);
+    }
+
+    public boolean intersectsLeftWall(int x, int y, int width, int height) {
+        return hasLeftWall && overlaps(x, y, width, height, leftWallX, wallY, wallThickness, wallHeight);
+    }
+
+    public boolean intersectsRightWall(int x, int y, int width, int height) {
+        return hasRightWall && overlaps(x, y, width, height, rightWallX, wallY, wallThickness, wallHeight);
+    }
+
+    // Continuous tests for a box at (x, y) moving by (dx, dy) this step: each returns the fraction of the
+    // move at which the box first touches the surface, or NO_HIT if it doesn't get there within the move
+    public static final double NO_HIT = 2;
+
+    // Tops are one-way: only a box moving down whose bottom starts on or above the top can land on it
+    public double sweepTop(int x, int y, int width, int height, int dx, int dy) {
+        int bottom = y + height;
+        if (isObstacle || dy <= 0 || bottom > this.y || bottom + dy < this.y) {
+            return NO_HIT;
+        }
+        double t = (this.y - bottom) / (double) dy;
+        double left = x + dx * t; // Where the box is horizontally when its bottom reaches the top
+        return left < this.x + this.width && left + width > this.x ? t : NO_HIT;
+    }
+
+    // Walls only block sideways movement; moving up or down past them is left to the tops and the ground
+    public double sweepWalls(int x, int y, int width, int height, int dx, int dy) {
+        double first = NO_HIT;
+        if (hasLeftWall) {
+            first = Math.min(first, sweepWall(leftWallX, x, y, width, height, dx, dy));
+        }
+        if (hasRightWall) {
+            first = Math.min(first, sweepWall(rightWallX, x, y, width, height, dx, dy));
+        }
+        return first;
+    }
+
+    private double sweepWall(int wallX, int x, int y, int width, int height, int dx, int dy) {
+        double t;
+        if (dx > 0 && x + width <= wallX && x + width + dx > wallX) {
+            t = (wallX - (x + width)) / (double) dx; // Leading right side reaches the wall's left face
+        } else if (dx < 0 && x >= wallX + wallThickness && x + dx < wallX + wallThickness) {
+            t = (wallX + wallThickness - x) / (double) dx; // Leading left side reaches the wall's right face
+        } else {
+            return NO_HIT;
+        }
+        double top = y + dy * t;
+        return top < wallY + wallHeight && top + height > wallY ? t : NO_HIT;
+    }
+
+    public int getMinX() {
+        return minX;
+    }
+
+    public int getMaxX() {
+        return maxX;
+    }
+
     public int getX() {
         return x;
     }
@@ -85,6 +165,35 @@ public class Platform {
         return isObstacle;
     }
 
+    // Wall boxes, valid when the platform has the wall
+    public int getLeftWallX() {
+        return leftWallX;
+    }
+
+    public int getRightWallX() {
+        return rightWallX;
+    }
+
+    public int getWallY() {
+        return wallY;
+    }
+
+    public int getWallThickness() {
+        return wallThickness;
+    }
+
+    public int getWallHeight() {
+        return wallHeight;
+    }
+
+    public boolean hasLeftWall() {
+        return hasLeftWall;
+    }
+
+    public boolean hasRightWall() {
+        return hasRightWall;
+    }
+
     public boolean isVisible() {
         return visible;
     }
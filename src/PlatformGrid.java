@@ -0,0 +1,239 @@
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+// Uniform grid over the level's platforms (broadphase). Each platform is stored in every cell its boxes
+// (body and walls) touch, so a query only has to look at the few cells around the player.
+public class PlatformGrid {
+    private final int cellSize;
+
+    // Platforms by slot; slots are handed out in insertion order and reused after removal
+    private Platform[] platforms = new Platform[64];
+    private int[] freeSlots = new int[16];
+    private int freeCount = 0;
+    private int slotCount = 0;
+    private final IdentityHashMap<Platform, Integer> slotsByPlatform = new IdentityHashMap<>();
+
+    // Open addressing hash table: cell key -> bucket of slots
+    private long[] cellKeys = new long[256];
+    private int[][] cellSlots = new int[256][];
+    private int[] cellSizes = new int[256];
+    private int cellCount = 0;
+
+    public PlatformGrid(int cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    // Reusable result buffer for queries. Each thread that queries the grid needs its own.
+    public static class Query {
+        private int[] stamps = new int[0]; // Last query that saw each slot, to skip platforms found in several cells
+        private int stamp = 0;
+        private int[] slots = new int[16];
+        private Platform[] results = new Platform[16];
+        private int count = 0;
+
+        public int size() {
+            return count;
+        }
+
+        public Platform get(int index) {
+            return results[index];
+        }
+    }
+
+    public void add(Platform platform) {
+        if (slotsByPlatform.containsKey(platform)) {
+            return;
+        }
+        int slot;
+        if (freeCount > 0) {
+            slot = freeSlots[--freeCount];
+        } else {
+            if (slotCount == platforms.length) {
+                platforms = Arrays.copyOf(platforms, slotCount * 2);
+            }
+            slot = slotCount++;
+        }
+        platforms[slot] = platform;
+        slotsByPlatform.put(platform, slot);
+
+        int minCellX = cell(platform.getMinX()), maxCellX = cell(platform.getMaxX() - 1);
+        int minCellY = cell(platform.getY()), maxCellY = cell(platform.getY() + platform.getHeight() - 1);
+        for (int cx = minCellX; cx <= maxCellX; cx++) {
+            for (int cy = minCellY; cy <= maxCellY; cy++) {
+                addToCell(key(cx, cy), slot);
+            }
+        }
+    }
+
+    public void remove(Platform platform) {
+        Integer boxed = slotsByPlatform.remove(platform);
+        if (boxed == null) {
+            return;
+        }
+        int slot = boxed;
+
+        int minCellX = cell(platform.getMinX()), maxCellX = cell(platform.getMaxX() - 1);
+        int minCellY = cell(platform.getY()), maxCellY = cell(platform.getY() + platform.getHeight() - 1);
+        for (int cx = minCellX; cx <= maxCellX; cx++) {
+            for (int cy = minCellY; cy <= maxCellY; cy++) {
+                removeFromCell(key(cx, cy), slot);
+            }
+        }
+
+        platforms[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    public void clear() {
+        Arrays.fill(platforms, null);
+        Arrays.fill(cellSlots, null);
+        Arrays.fill(cellSizes, 0);
+        Arrays.fill(cellKeys, 0);
+        slotsByPlatform.clear();
+        slotCount = 0;
+        freeCount = 0;
+        cellCount = 0;
+    }
+
+    public int size() {
+        return slotsByPlatform.size();
+    }
+
+    // Collects every platform whose body or walls could touch the given box. Results are ordered by slot
+    // (i.e. level order for a freshly loaded level), so collision response doesn't depend on cell layout.
+    public void query(int x, int y, int width, int height, Query query) {
+        if (query.stamps.length < slotCount) {
+            query.stamps = Arrays.copyOf(query.stamps, platforms.length); // Only grows when the level grows
+        }
+        if (++query.stamp == 0) {
+            Arrays.fill(query.stamps, 0); // Stamp wrapped around
+            query.stamp = 1;
+        }
+        query.count = 0;
+
+        int minCellX = cell(x), maxCellX = cell(x + width - 1);
+        int minCellY = cell(y), maxCellY = cell(y + height - 1);
+        for (int cx = minCellX; cx <= maxCellX; cx++) {
+            for (int cy = minCellY; cy <= maxCellY; cy++) {
+                int index = find(key(cx, cy));
+                if (index < 0) {
+                    continue;
+                }
+                int[] bucket = cellSlots[index];
+                for (int i = 0, n = cellSizes[index]; i < n; i++) {
+                    int slot = bucket[i];
+                    if (query.stamps[slot] != query.stamp) {
+                        query.stamps[slot] = query.stamp;
+                        insertSorted(query, slot);
+                    }
+                }
+            }
+        }
+
+        for (int i = 0; i < query.count; i++) {
+            query.results[i] = platforms[query.slots[i]];
+        }
+    }
+
+    private static void insertSorted(Query query, int slot) {
+        if (query.count == query.slots.length) {
+            query.slots = Arrays.copyOf(query.slots, query.count * 2);
+            query.results = Arrays.copyOf(query.results, query.count * 2);
+        }
+        int i = query.count++;
+        while (i > 0 && query.slots[i - 1] > slot) {
+            query.slots[i] = query.slots[i - 1];
+            i--;
+        }
+        query.slots[i] = slot;
+    }
+
+    private int cell(int coordinate) {
+        return Math.floorDiv(coordinate, cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    // Index of the cell in the table, or -1 if no platform was ever added to it
+    private int find(long key) {
+        int mask = cellKeys.length - 1;
+        for (int i = hash(key) & mask; ; i = (i + 1) & mask) {
+            if (cellSlots[i] == null) {
+                return -1;
+            }
+            if (cellKeys[i] == key) {
+                return i;
+            }
+        }
+    }
+
+    private void addToCell(long key, int slot) {
+        int index = find(key);
+        if (index < 0) {
+            if ((cellCount + 1) * 2 > cellKeys.length) {
+                growTable();
+            }
+            int mask = cellKeys.length - 1;
+            index = hash(key) & mask;
+            while (cellSlots[index] != null) {
+                index = (index + 1) & mask;
+            }
+            cellKeys[index] = key;
+            cellSlots[index] = new int[4];
+            cellCount++;
+        }
+        int[] bucket = cellSlots[index];
+        if (cellSizes[index] == bucket.length) {
+            bucket = cellSlots[index] = Arrays.copyOf(bucket, bucket.length * 2);
+        }
+        bucket[cellSizes[index]++] = slot;
+    }
+
+    private void removeFromCell(long key, int slot) {
+        int index = find(key);
+        if (index < 0) {
+            return;
+        }
+        int[] bucket = cellSlots[index];
+        int n = cellSizes[index];
+        for (int i = 0; i < n; i++) {
+            if (bucket[i] == slot) {
+                bucket[i] = bucket[n - 1]; // Swap-remove; query results are sorted afterwards anyway
+                cellSizes[index] = n - 1;
+                return;
+            }
+        }
+    }
+
+    private void growTable() {
+        long[] oldKeys = cellKeys;
+        int[][] oldSlots = cellSlots;
+        int[] oldSizes = cellSizes;
+        cellKeys = new long[oldKeys.length * 2];
+        cellSlots = new int[oldKeys.length * 2][];
+        cellSizes = new int[oldKeys.length * 2];
+        int mask = cellKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldSlots[i] == null) {
+                continue;
+            }
+            int index = hash(oldKeys[i]) & mask;
+            while (cellSlots[index] != null) {
+                index = (index + 1) & mask;
+            }
+            cellKeys[index] = oldKeys[i];
+            cellSlots[index] = oldSlots[i];
+            cellSizes[index] = oldSizes[i];
+        }
+    }
+}
@@ -0,0 +1,30 @@
+// A platform's values as the level file has them, for matching platforms by value. Platforms themselves
+// compare by identity (World, PlatformGrid), so maps keyed by value use this instead.
+public final class PlatformKey {
+    private final int x, y, width, height, flags;
+
+    public PlatformKey(Platform platform) {
+        x = platform.getX();
+        y = platform.getY();
+        width = platform.getWidth();
+        height = platform.getHeight();
+        flags = LevelIO.flagsOf(platform);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof PlatformKey key)) {
+            return false;
+        }
+        return x == key.x && y == key.y && width == key.width && height == key.height && flags == key.flags;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = x;
+        hash = 31 * hash + y;
+        hash = 31 * hash + width;
+        hash = 31 * hash + height;
+        return 31 * hash + flags;
+    }
+}
@@ -0,0 +1,76 @@
+import java.util.Arrays;
+import java.util.List;
+
+// Plays an input recording back without a window, as fast as the CPU allows, checking the recorded
+// checksums and timing every tick. Exits with 1 if the simulation no longer matches the recording.
+// Usage:
+//   java -Djava.awt.headless=true -cp out:lib/json-20250107.jar ReplayRunner <recording.wrec> [runs]
+// To watch a recording instead: java -Dwitch.replay=<recording.wrec> Game
+public class ReplayRunner {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: ReplayRunner <recording.wrec> [runs]");
+            System.exit(2);
+        }
+        InputRecording recording = InputRecording.read(args[0]);
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        ClipInfo[] clips = WitchClips.load();
+        List<Platform> platforms = LevelIO.load(recording.getLevel());
+
+        boolean desync = false;
+        for (int run = 0; run < runs; run++) {
+            desync |= replay(recording, clips, platforms, run + 1);
+        }
+        System.exit(desync ? 1 : 0);
+    }
+
+    // Returns true on a desync
+    private static boolean replay(InputRecording recording, ClipInfo[] clips, List<Platform> platforms, int run) {
+        World world = recording.createWorld(clips);
+        world.addPlatforms(platforms);
+        TickScheduler scheduler = TickScheduler.forThreads(Integer.getInteger("witch.tickThreads", 1));
+        world.setScheduler(scheduler);
+        InputSnapshot input = new InputSnapshot();
+
+        int ticks = recording.getTicks();
+        long[] tickNanos = new long[ticks];
+        int firstDesync = -1;
+        long start = System.nanoTime();
+        for (int t = 0; t < ticks; t++) {
+            recording.apply(t, input, world);
+            long tickStart = System.nanoTime();
+            world.tick(input);
+            tickNanos[t] = System.nanoTime() - tickStart;
+
+            Long expected = recording.checksumAfter(t + 1);
+            if (expected != null && expected != world.checksum() && firstDesync < 0) {
+                firstDesync = t + 1;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        scheduler.shutdown();
+
+        Arrays.sort(tickNanos);
+        System.out.printf("run %d: %d ticks in %.2f s (%.0fx real time), checksum %016x, %s%n", run, ticks,
+                elapsed / 1e9, ticks / (double) World.TICKS_PER_SECOND / (elapsed / 1e9), world.checksum(),
+                firstDesync < 0 ? "no desync" : "DESYNC at tick " + firstDesync);
+        if (ticks > 0) {
+            System.out.printf("  tick ms: p50 %.3f  p99 %.3f  max %.3f  mean %.3f%n", percentile(tickNanos, 50) / 1e6,
+                    percentile(tickNanos, 99) / 1e6, tickNanos[ticks - 1] / 1e6, (double) sum(tickNanos) / ticks / 1e6);
+        }
+        return firstDesync >= 0;
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total;
+    }
+}
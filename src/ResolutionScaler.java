@@ -0,0 +1,178 @@
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.VolatileImage;
+import java.util.function.Consumer;
+
+// Renders the scene at a fixed internal resolution (the world's coordinate space, 1920x1080 by default)
+// into one back buffer, then scales that buffer to the display with a single blit, letterboxed to keep
+// the aspect ratio. With dynamic resolution on, the buffer shrinks by steps while frames run over budget
+// and grows back once there is headroom; the scene still draws in internal coordinates.
+public class ResolutionScaler {
+    private static final double[] SCALES = {1.0, 0.85, 0.7, 0.6, 0.5}; // Dynamic resolution steps
+    private static final int SAMPLE_FRAMES = 30; // Frames averaged before deciding to change the step
+    private static final double DOWN_THRESHOLD = 0.9; // Drop a step above 90% of the budget...
+    private static final double UP_THRESHOLD = 0.6; // ...and go back up below 60%
+
+    private final int width, height; // Internal resolution
+    private final Object interpolation; // RenderingHints.VALUE_INTERPOLATION_*
+    private final boolean letterbox; // Keep the aspect ratio (black bars) instead of stretching
+    private final boolean dynamic;
+    private final long budgetNanos; // Frame time the dynamic mode aims to stay under
+
+    private int step = 0; // Index into SCALES
+    private long sampleNanos = 0;
+    private int sampleCount = 0;
+
+    private VolatileImage buffer;
+    private int bufferWidth, bufferHeight;
+
+    public ResolutionScaler(int width, int height, Object interpolation, boolean letterbox, boolean dynamic, long budgetNanos) {
+        this.width = width;
+        this.height = height;
+        this.interpolation = interpolation;
+        this.letterbox = letterbox;
+        this.dynamic = dynamic;
+        this.budgetNanos = budgetNanos;
+    }
+
+    // From -Dwitch.resolution=<w>x<h> (or "native" for no internal resolution), -Dwitch.scaling=nearest|bilinear|bicubic,
+    // -Dwitch.letterbox=false and -Dwitch.dynamicResolution=true. Returns null for native rendering.
+    public static ResolutionScaler fromProperties(int defaultWidth, int defaultHeight, long budgetNanos) {
+        String resolution = System.getProperty("witch.resolution", defaultWidth + "x" + defaultHeight);
+        if (resolution.equalsIgnoreCase("native")) {
+            return null;
+        }
+        int width = defaultWidth, height = defaultHeight;
+        String[] parts = resolution.toLowerCase().split("x");
+        int parsedWidth = 0, parsedHeight = 0; // Only used once both parts are known to be good
+        if (parts.length == 2) {
+            try {
+                parsedWidth = Integer.parseInt(parts[0].trim());
+                parsedHeight = Integer.parseInt(parts[1].trim());
+            } catch (NumberFormatException e) {
+                parsedWidth = 0;
+            }
+        }
+        if (parsedWidth > 0 && parsedHeight > 0) {
+            width = parsedWidth;
+            height = parsedHeight;
+        } else {
+            System.err.println("Bad -Dwitch.resolution '" + resolution + "', using " + defaultWidth + "x" + defaultHeight);
+        }
+
+        Object interpolation;
+        switch (System.getProperty("witch.scaling", "bilinear").toLowerCase()) {
+            case "nearest": interpolation = RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR; break;
+            case "bicubic": interpolation = RenderingHints.VALUE_INTERPOLATION_BICUBIC; break;
+            default: interpolation = RenderingHints.VALUE_INTERPOLATION_BILINEAR; break;
+        }
+        return new ResolutionScaler(width, height, interpolation,
+                !"false".equals(System.getProperty("witch.letterbox")),
+                Boolean.getBoolean("witch.dynamicResolution"), budgetNanos);
+    }
+
+    // Draws 'scene' (in internal coordinates) into the back buffer and the buffer onto the screen
+    public void render(Graphics screen, int screenWidth, int screenHeight, Consumer<Graphics> scene) {
+        if (screenWidth <= 0 || screenHeight <= 0) {
+            return;
+        }
+        Graphics2D screen2d = (Graphics2D) screen;
+        GraphicsConfiguration gc = screen2d.getDeviceConfiguration();
+        double scale = SCALES[step];
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        // Where the buffer lands on screen
+        int drawWidth = screenWidth, drawHeight = screenHeight;
+        if (letterbox) {
+            double fit = Math.min(screenWidth / (double) width, screenHeight / (double) height);
+            drawWidth = (int) Math.round(width * fit);
+            drawHeight = (int) Math.round(height * fit);
+        }
+        int drawX = (screenWidth - drawWidth) / 2, drawY = (screenHeight - drawHeight) / 2;
+
+        do {
+            if (buffer == null || bufferWidth != targetWidth || bufferHeight != targetHeight) {
+                createBuffer(gc, targetWidth, targetHeight);
+            }
+            if (buffer.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                createBuffer(gc, targetWidth, targetHeight);
+            }
+            // The whole buffer is redrawn every frame, so a restored buffer needs nothing special
+
+            Graphics2D g2d = buffer.createGraphics();
+            try {
+                if (scale != 1.0) {
+                    g2d.scale(scale, scale);
+                }
+                scene.accept(g2d);
+            } finally {
+                g2d.dispose();
+            }
+
+            screen.setColor(Color.BLACK);
+            if (drawY > 0) {
+                screen.fillRect(0, 0, screenWidth, drawY); // Bars
+                screen.fillRect(0, drawY + drawHeight, screenWidth, screenHeight - drawY - drawHeight);
+            }
+            if (drawX > 0) {
+                screen.fillRect(0, 0, drawX, screenHeight);
+                screen.fillRect(drawX + drawWidth, 0, screenWidth - drawX - drawWidth, screenHeight);
+            }
+            Object previous = screen2d.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+            screen2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+            screen.drawImage(buffer, drawX, drawY, drawX + drawWidth, drawY + drawHeight, 0, 0, targetWidth, targetHeight, null);
+            if (previous != null) {
+                screen2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, previous);
+            }
+        } while (buffer.contentsLost());
+    }
+
+    private void createBuffer(GraphicsConfiguration gc, int bufferWidth, int bufferHeight) {
+        if (buffer != null) {
+            buffer.flush();
+        }
+        buffer = gc.createCompatibleVolatileImage(bufferWidth, bufferHeight, Transparency.OPAQUE);
+        this.bufferWidth = bufferWidth;
+        this.bufferHeight = bufferHeight;
+    }
+
+    // Feeds the time the last frame took (work only, not the frame cap's wait). Returns true if the scale changed.
+    public boolean frameFinished(long frameNanos) {
+        if (!dynamic) {
+            return false;
+        }
+        sampleNanos += frameNanos;
+        if (++sampleCount < SAMPLE_FRAMES) {
+            return false;
+        }
+        double average = sampleNanos / (double) sampleCount;
+        sampleNanos = 0;
+        sampleCount = 0;
+        if (average > budgetNanos * DOWN_THRESHOLD && step < SCALES.length - 1) {
+            step++;
+            return true;
+        }
+        if (average < budgetNanos * UP_THRESHOLD && step > 0) {
+            step--;
+            return true;
+        }
+        return false;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public double getScale() {
+        return SCALES[step];
+    }
+}
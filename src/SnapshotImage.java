@@ -0,0 +1,183 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+// Flat image of the world state: a run of 32-bit words in an off-heap buffer, written and read back in
+// the same order by World.saveState / loadState. Primitive arrays go in and out with bulk copies, so taking
+// an image of thousands of entities is a few memcpys. Longs take two words and start on an even word.
+public class SnapshotImage {
+    private ByteBuffer bytes;
+    private IntBuffer ints; // Views of the same memory, indexed in words...
+    private FloatBuffer floats;
+    private LongBuffer longs; // ...and in pairs of words
+    private int position = 0; // Next word to write or read
+    private int length = 0; // Words in the image
+
+    public SnapshotImage(int initialWords) {
+        allocate(Math.max(64, initialWords));
+    }
+
+    private void allocate(int words) {
+        ByteBuffer grown = ByteBuffer.allocateDirect(words * 4).order(ByteOrder.nativeOrder());
+        if (bytes != null) {
+            grown.put(0, bytes, 0, length * 4); // Keep what was written so far
+        }
+        bytes = grown;
+        ints = grown.asIntBuffer();
+        floats = grown.asFloatBuffer();
+        longs = grown.asLongBuffer();
+    }
+
+    // Makes room for this many more words after the current position
+    private void ensure(int words) {
+        int needed = position + words + 1; // +1 for alignment padding
+        if (needed > ints.capacity()) {
+            allocate(Math.max(needed, ints.capacity() * 2));
+        }
+    }
+
+    // Starts a new image
+    public void clear() {
+        position = 0;
+        length = 0;
+    }
+
+    // Starts reading the image from the beginning
+    public void rewind() {
+        position = 0;
+    }
+
+    // Sets the length of an image that was copied in as a whole (see SnapshotRing)
+    public void setLength(int words) {
+        position = 0;
+        length = 0;
+        ensure(words);
+        length = words;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    // The words [0, length), as ints
+    public IntBuffer words() {
+        return ints;
+    }
+
+    // The same memory as bytes, e.g. to write the image to a file
+    public ByteBuffer bytes() {
+        return bytes;
+    }
+
+    private void align() {
+        if ((position & 1) != 0) {
+            ints.put(position++, 0);
+        }
+    }
+
+    private void written() {
+        length = Math.max(length, position);
+    }
+
+    public void putInt(int value) {
+        ensure(1);
+        ints.put(position++, value);
+        written();
+    }
+
+    public void putLong(long value) {
+        ensure(2);
+        align();
+        longs.put(position >> 1, value);
+        position += 2;
+        written();
+    }
+
+    public void putDouble(double value) {
+        putLong(Double.doubleToRawLongBits(value));
+    }
+
+    public void putInts(int[] values, int count) {
+        ensure(count);
+        ints.put(position, values, 0, count);
+        position += count;
+        written();
+    }
+
+    public void putFloats(float[] values, int count) {
+        ensure(count);
+        floats.put(position, values, 0, count);
+        position += count;
+        written();
+    }
+
+    public void putLongs(long[] values, int count) {
+        ensure(count * 2);
+        align();
+        longs.put(position >> 1, values, 0, count);
+        position += count * 2;
+        written();
+    }
+
+    // Packed 32 to a word
+    public void putBooleans(boolean[] values, int count) {
+        int words = (count + 31) >> 5;
+        ensure(words);
+        for (int w = 0; w < words; w++) {
+            int bits = 0;
+            for (int i = w << 5, end = Math.min(count, i + 32); i < end; i++) {
+                if (values[i]) {
+                    bits |= 1 << (i & 31);
+                }
+            }
+            ints.put(position++, bits);
+        }
+        written();
+    }
+
+    public int getInt() {
+        return ints.get(position++);
+    }
+
+    public long getLong() {
+        if ((position & 1) != 0) {
+            position++;
+        }
+        long value = longs.get(position >> 1);
+        position += 2;
+        return value;
+    }
+
+    public double getDouble() {
+        return Double.longBitsToDouble(getLong());
+    }
+
+    public void getInts(int[] values, int count) {
+        ints.get(position, values, 0, count);
+        position += count;
+    }
+
+    public void getFloats(float[] values, int count) {
+        floats.get(position, values, 0, count);
+        position += count;
+    }
+
+    public void getLongs(long[] values, int count) {
+        if ((position & 1) != 0) {
+            position++;
+        }
+        longs.get(position >> 1, values, 0, count);
+        position += count * 2;
+    }
+
+    public void getBooleans(boolean[] values, int count) {
+        for (int i = 0; i < count; i += 32) {
+            int bits = ints.get(position++);
+            for (int j = i, end = Math.min(count, i + 32); j < end; j++) {
+                values[j] = (bits & (1 << (j & 31))) != 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,329 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Per-tick history of the world state for rewinding, in one preallocated off-heap buffer. Every
+// KEYFRAME_INTERVAL ticks the full state image (see SnapshotImage) is stored; the ticks in between are
+// stored as a delta against that keyframe: runs of [unchanged words, changed words, the changed words...].
+// When the buffer is full the oldest ticks are overwritten, a keyframe taking its deltas with it.
+// Nothing is allocated per tick once the scratch image has grown to the state's size. Particles are left
+// out of the history: a full pool is over a megabyte that changes almost entirely every tick, which would
+// cost more than the rest of the state and fill the ring in a second or two.
+//
+// Save files hold one keyframe: int magic ('WSNP'), int version, int image length in words, then the
+// image, in native byte order.
+public class SnapshotRing {
+    public static final int MAGIC = 0x504E5357; // "WSNP" read as a little endian int
+    public static final int VERSION = 1;
+    public static final int KEYFRAME_INTERVAL = 30; // Ticks between keyframes; a restore decodes one delta at most
+
+    private final IntBuffer ring;
+    private final int capacityWords;
+    private int writeOffset = 0; // Where the next entry goes
+
+    // Entries, oldest first, in a ring of slots
+    private final long[] ticks;
+    private final int[] offsets; // Start of the entry in the ring
+    private final int[] sizes; // Words the entry takes in the ring
+    private final int[] imageLengths; // Words of the image it decodes to
+    private final int[] keyframes; // Slot of the keyframe a delta is against; -1 for keyframes
+    private int first = 0, count = 0;
+    private int keyframe = -1; // Slot of the newest keyframe, -1 if there is none
+    private int sinceKeyframe = 0; // Entries stored since that keyframe
+
+    private final SnapshotImage image = new SnapshotImage(4096); // Scratch image of the world being captured or restored
+
+    // Heap copies for the word by word work: direct buffers are only touched with bulk copies
+    private int[] current = new int[4096]; // The image being encoded or decoded
+    private int[] keyWords = new int[4096]; // The image of keyframe slot keyWordsSlot
+    private int keyWordsSlot = -1;
+
+    // capacityBytes: size of the off-heap buffer; maxEntries: ticks of history kept at most
+    public SnapshotRing(int capacityBytes, int maxEntries) {
+        capacityWords = capacityBytes / 4;
+        ring = ByteBuffer.allocateDirect(capacityWords * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+        ticks = new long[maxEntries];
+        offsets = new int[maxEntries];
+        sizes = new int[maxEntries];
+        imageLengths = new int[maxEntries];
+        keyframes = new int[maxEntries];
+    }
+
+    // Stores the world's current state as its tick's entry. Call once per tick, after the tick.
+    // Particles are not kept (see World.saveState): a rewound world starts with an empty particle pool.
+    public void capture(World world) {
+        world.saveState(image, false);
+        int length = image.length();
+        if (length + 2 > capacityWords) {
+            throw new IllegalStateException("World state (" + length * 4 + " bytes) doesn't fit the snapshot ring");
+        }
+        if (current.length < length) {
+            current = new int[Math.max(length, current.length * 2)];
+        }
+        image.words().get(0, current, 0, length);
+        int offset = reserve(length);
+        // (If making room overwrote the keyframe, this one becomes the new keyframe)
+        int size = keyframe >= 0 && sinceKeyframe < KEYFRAME_INTERVAL ? encodeDelta(offset, length) : -1;
+
+        int slot = (first + count) % ticks.length;
+        ticks[slot] = world.getTick();
+        offsets[slot] = offset;
+        imageLengths[slot] = length;
+        if (size >= 0) {
+            sizes[slot] = size;
+            keyframes[slot] = keyframe;
+            sinceKeyframe++;
+        } else {
+            // Keyframe: due, or the delta wouldn't have been any smaller
+            ring.put(offset, current, 0, length);
+            sizes[slot] = length;
+            keyframes[slot] = -1;
+            keyframe = slot;
+            sinceKeyframe = 0;
+            cacheKeyframe(slot, current);
+        }
+        count++;
+        writeOffset = offset + sizes[slot];
+    }
+
+    // Steps the world back one tick: drops the newest entry and restores the one before it.
+    // Returns false when there is no older state left.
+    public boolean rewind(World world) {
+        if (count < 2) {
+            return false;
+        }
+        dropNewest();
+        restoreSlot(newest(), world);
+        return true;
+    }
+
+    // Restores the state of the given tick, dropping everything after it. Returns false when it isn't kept.
+    public boolean restore(long tick, World world) {
+        for (int i = count - 1; i >= 0; i--) {
+            int slot = (first + i) % ticks.length;
+            if (ticks[slot] == tick) {
+                while (count > i + 1) {
+                    dropNewest();
+                }
+                restoreSlot(slot, world);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void clear() {
+        keyWordsSlot = -1;
+        first = 0;
+        count = 0;
+        keyframe = -1;
+        sinceKeyframe = 0;
+        writeOffset = 0;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long getOldestTick() {
+        return count > 0 ? ticks[first] : -1;
+    }
+
+    // Bytes of the ring the kept history takes
+    public long getUsedBytes() {
+        long words = 0;
+        for (int i = 0; i < count; i++) {
+            words += sizes[(first + i) % ticks.length];
+        }
+        return words * 4;
+    }
+
+    // Writes the world's state to a save file, particles included
+    public void save(World world, Path path) throws IOException {
+        world.saveState(image, true);
+        ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.nativeOrder());
+        header.putInt(MAGIC).putInt(VERSION).putInt(image.length()).flip();
+        ByteBuffer body = image.bytes().duplicate().position(0).limit(image.length() * 4);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(new ByteBuffer[]{header, body});
+        }
+    }
+
+    // Loads a save file into the world. The history doesn't lead up to the loaded state, so it is cleared.
+    public void load(Path path, World world) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(12).order(ByteOrder.nativeOrder());
+            readFully(channel, header, path);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a save state: " + path);
+            }
+            int length = header.getInt();
+            if (length < 0 || length * 4L != channel.size() - 12) {
+                throw new IOException("Truncated save state: " + path);
+            }
+            image.setLength(length);
+            readFully(channel, image.bytes().duplicate().position(0).limit(length * 4), path);
+        }
+        world.loadState(image);
+        clear();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, Path path) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Truncated save state: " + path);
+            }
+        }
+    }
+
+    private int newest() {
+        return (first + count - 1) % ticks.length;
+    }
+
+    // Finds room for an entry of up to length words after the newest one, overwriting the oldest entries
+    private int reserve(int length) {
+        if (count == ticks.length) {
+            dropOldest();
+        }
+        int offset = writeOffset;
+        if (offset + length > capacityWords) {
+            // Doesn't fit before the end: the entries still between here and the end are the oldest, drop them
+            while (count > 0 && offsets[first] >= offset) {
+                dropOldest();
+            }
+            offset = 0;
+        }
+        while (count > 0 && offsets[first] >= offset && offsets[first] < offset + length) {
+            dropOldest();
+        }
+        return offset;
+    }
+
+    private void dropOldest() {
+        int slot = first;
+        first = (first + 1) % ticks.length;
+        count--;
+        if (slot == keyframe) {
+            keyframe = -1; // The next capture starts a new keyframe
+        }
+        if (slot == keyWordsSlot) {
+            keyWordsSlot = -1;
+        }
+        // Deltas against a dropped keyframe can't be decoded any more
+        while (count > 0 && keyframes[first] == slot) {
+            first = (first + 1) % ticks.length;
+            count--;
+        }
+    }
+
+    private void dropNewest() {
+        int slot = newest();
+        count--;
+        writeOffset = offsets[slot];
+        if (slot == keyWordsSlot) {
+            keyWordsSlot = -1;
+        }
+        if (slot == keyframe) {
+            keyframe = -1;
+        } else if (keyframes[slot] >= 0) {
+            sinceKeyframe--;
+        }
+    }
+
+    private void cacheKeyframe(int slot, int[] words) {
+        int length = imageLengths[slot];
+        if (keyWords.length < length) {
+            keyWords = new int[Math.max(length, keyWords.length * 2)];
+        }
+        if (words != null) {
+            System.arraycopy(words, 0, keyWords, 0, length);
+        } else {
+            ring.get(offsets[slot], keyWords, 0, length);
+        }
+        keyWordsSlot = slot;
+    }
+
+    // Writes the captured image as a delta against the newest keyframe at offset. Returns the words
+    // written, or -1 if the delta wouldn't be smaller than the image.
+    private int encodeDelta(int offset, int length) {
+        if (keyWordsSlot != keyframe) {
+            cacheKeyframe(keyframe, null); // Rewound to an older keyframe
+        }
+        int keyLength = Math.min(imageLengths[keyframe], length);
+        int out = offset;
+        int limit = offset + length;
+        int i = 0;
+        while (i < length) {
+            int start = i;
+            while (i < keyLength && current[i] == keyWords[i]) {
+                i++;
+            }
+            int same = i - start;
+
+            // Changed words, carrying on over gaps of up to two unchanged ones: no more than a new run's header
+            int changedStart = i;
+            int changedEnd = i;
+            while (i < length && i - changedEnd <= 2) {
+                if (i >= keyLength || current[i] != keyWords[i]) {
+                    changedEnd = i + 1;
+                }
+                i++;
+            }
+            i = changedEnd;
+            int changed = changedEnd - changedStart;
+            if (changed == 0) {
+                break; // The rest is as in the keyframe
+            }
+            if (out + 2 + changed > limit) {
+                return -1;
+            }
+            ring.put(out++, same);
+            ring.put(out++, changed);
+            ring.put(out, current, changedStart, changed);
+            out += changed;
+        }
+        return out - offset;
+    }
+
+    private void restoreSlot(int slot, World world) {
+        int length = imageLengths[slot];
+        int key = keyframes[slot];
+        if (key < 0) {
+            image.setLength(length);
+            image.words().put(0, ring, offsets[slot], length);
+        } else {
+            // Start from the keyframe and patch in the changed runs
+            if (keyWordsSlot != key) {
+                cacheKeyframe(key, null);
+            }
+            if (current.length < length) {
+                current = new int[Math.max(length, current.length * 2)];
+            }
+            System.arraycopy(keyWords, 0, current, 0, Math.min(imageLengths[key], length));
+            int in = offsets[slot];
+            int end = in + sizes[slot];
+            int i = 0;
+            while (in < end) {
+                i += ring.get(in++);
+                int changed = ring.get(in++);
+                ring.get(in, current, i, changed);
+                in += changed;
+                i += changed;
+            }
+            image.setLength(length);
+            image.words().put(0, current, 0, length);
+        }
+        world.loadState(image);
+        keyframe = key < 0 ? slot : key;
+        sinceKeyframe = 0;
+        for (int i = count - 1; i >= 0 && (first + i) % ticks.length != keyframe; i--) {
+            sinceKeyframe++;
+        }
+    }
+}
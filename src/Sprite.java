@@ -1,98 +1,84 @@
 import java.awt.Graphics;
-import java.awt.Graphics2D;
 import java.awt.Rectangle;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import javax.imageio.ImageIO;
-import java.io.File;
-import java.io.IOException;
 
 public class Sprite {
-    private BufferedImage spriteSheet; // The entire sprite sheet
+    private AnimationClip clip; // The clip currently being played
+    private BufferedImage[][] frames; // Frames of the clip at the current scale: [0] normal, [1] flipped
     private int frameWidth, frameHeight; // Dimensions of each frame
     private int scaleFactor = 3; // Scaling factor
     private int currentFrame = 0; // Current frame index
     private int totalFrames; // Total number of frames in the sprite sheet
-    private boolean isVertical = false; // Indicates if the sprite sheet is vertical
     private boolean flipHorizontal = false; // Indicates if the sprite should be flipped horizontally
 
     private int x, y; // Position of the sprite
+    private int previousX, previousY; // Position at the previous simulation tick, for render interpolation
     private boolean isAnimationLocked = false; // Locks the animation until it completes
 
-    public Sprite(String imagePath, int x, int y, int frameWidth, int frameHeight, int scaleFactor, boolean isVertical) {
-        try {
-            this.spriteSheet = ImageIO.read(new File(imagePath)); // Load the sprite sheet
-        } catch (IOException e) {
-            System.err.println("Error loading sprite sheet: " + imagePath);
-            e.printStackTrace();
-        }
+    public Sprite(AnimationClip clip, int x, int y, int scaleFactor) {
         this.x = x;
         this.y = y;
-        this.frameWidth = frameWidth;
-        this.frameHeight = frameHeight;
+        this.previousX = x;
+        this.previousY = y;
         this.scaleFactor = scaleFactor;
-        this.isVertical = isVertical;
+        setAnimation(clip);
+    }
 
-        // Calculate the total number of frames in the sprite sheet
-        if (isVertical) {
-            this.totalFrames = spriteSheet.getHeight() / frameHeight; // Vertical layout
-        } else {
-            this.totalFrames = spriteSheet.getWidth() / frameWidth; // Horizontal layout
-        }
+    public Sprite(String imagePath, int x, int y, int frameWidth, int frameHeight, int scaleFactor, boolean isVertical) {
+        this(loadShared(imagePath, frameWidth, frameHeight, isVertical), x, y, scaleFactor);
+    }
+
+    private static AnimationClip loadShared(String imagePath, int frameWidth, int frameHeight, boolean isVertical) {
+        AnimationRegistry registry = AnimationRegistry.shared();
+        int handle = registry.load(imagePath + ":" + frameWidth + "x" + frameHeight + (isVertical ? "v" : "h"),
+                imagePath, frameWidth, frameHeight, isVertical);
+        return handle >= 0 ? registry.get(handle) : null;
+    }
+
+    // Switches to an already loaded clip. Once the clip's frames at this scale are built (the game builds them
+    // while loading), this is field reads only: no I/O, no lock and no allocation, so it is safe to call on
+    // every state change. The first call for a new scale builds them here.
+    public void setAnimation(AnimationClip clip) {
+        this.clip = clip;
+        this.frames = clip.getScaledFrames(scaleFactor);
+        this.frameWidth = clip.getFrameWidth();
+        this.frameHeight = clip.getFrameHeight();
+        this.totalFrames = clip.getTotalFrames();
+        this.currentFrame = 0; // Reset to the first frame
     }
 
     public void setSpriteSheet(String imagePath, int frameWidth, int frameHeight, boolean isVertical) {
-        try {
-            this.spriteSheet = ImageIO.read(new File(imagePath)); // Load a new sprite sheet
-            this.frameWidth = frameWidth;
-            this.frameHeight = frameHeight;
-            this.isVertical = isVertical;
-
-            // Recalculate the total number of frames
-            calculateTotalFrames();
-
-            this.currentFrame = 0; // Reset to the first frame
-        } catch (IOException e) {
-            System.err.println("Error loading sprite sheet: " + imagePath);
-            e.printStackTrace();
+        // Path based variant kept for old callers. The sheet is still only decoded the first time it is seen.
+        AnimationClip clip = loadShared(imagePath, frameWidth, frameHeight, isVertical);
+        if (clip != null) {
+            setAnimation(clip);
         }
     }
 
-    private void calculateTotalFrames() {
-        if (isVertical) {
-            this.totalFrames = spriteSheet.getHeight() / frameHeight; // Vertical layout
-        } else {
-            this.totalFrames = spriteSheet.getWidth() / frameWidth; // Horizontal layout
-        }
+    public AnimationClip getAnimation() {
+        return clip;
     }
 
     public void draw(Graphics g) {
-        // Extract the current frame from the sprite sheet
-        BufferedImage frame;
-        if (isVertical) {
-            int frameY = currentFrame * frameHeight; // Y-coordinate of the current frame
-            frame = spriteSheet.getSubimage(0, frameY, frameWidth, frameHeight); // Vertical layout
-        } else {
-            int frameX = currentFrame * frameWidth; // X-coordinate of the current frame
-            frame = spriteSheet.getSubimage(frameX, 0, frameWidth, frameHeight); // Horizontal layout
-        }
+        // Frames are already sliced, scaled and flipped, so this is a plain unscaled blit
+        g.drawImage(frames[flipHorizontal ? 1 : 0][currentFrame], x, y, null);
+    }
 
-        // Apply transformations for flipping
-        Graphics2D g2d = (Graphics2D) g.create(); // Create a copy of the Graphics object
-        AffineTransform transform = new AffineTransform();
-
-        // Scale the image based on the flipHorizontal flag
-        if (flipHorizontal) {
-            transform.translate(x + frameWidth * scaleFactor, y); // Translate to the flipped position
-            transform.scale(-scaleFactor, scaleFactor); // Flip horizontally
-        } else {
-            transform.translate(x, y); // Translate to the normal position
-            transform.scale(scaleFactor, scaleFactor); // Scale normally
-        }
+    // Draws the sprite at a point between its previous and current position (alpha 0 = previous, 1 = current)
+    public void draw(Graphics g, double alpha) {
+        int drawX = (int) Math.round(previousX + (x - previousX) * alpha);
+        int drawY = (int) Math.round(previousY + (y - previousY) * alpha);
+        g.drawImage(frames[flipHorizontal ? 1 : 0][currentFrame], drawX, drawY, null);
+    }
 
-        // Draw the transformed frame
-        g2d.drawImage(frame, transform, null);
-        g2d.dispose(); // Dispose of the Graphics2D object
+    public void savePreviousPosition() {
+        previousX = x;
+        previousY = y;
+    }
+
+    public void setPosition(int x, int y) {
+        this.x = x;
+        this.y = y;
     }
 
     public void move(int dx, int dy) {
@@ -115,6 +101,9 @@ public class Sprite {
 
     public void setScaleFactor(int scaleFactor) {
         this.scaleFactor = scaleFactor; // Set the scaling factor
+        if (clip != null) {
+            this.frames = clip.getScaledFrames(scaleFactor); // Rebuild (or reuse) the frame cache for the new scale
+        }
     }
 
     public int getScaleFactor() {
@@ -0,0 +1,115 @@
+import java.awt.AlphaComposite;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.Transparency;
+import java.awt.image.VolatileImage;
+import java.util.List;
+
+// Keeps the level art and all static platforms pre-drawn on one viewport sized surface,
+// so a frame only needs a single blit for them
+public class StaticLayerCache {
+    private Image levelArt; // Level picture, stretched to the viewport
+    private List<Platform> platforms; // Static platforms drawn on top of the art
+
+    private VolatileImage surface; // Lives in video memory; its contents can be lost at any time
+    private int surfaceWidth, surfaceHeight;
+    private boolean dirty = true; // The surface has to be redrawn before the next blit
+    private Rectangle dirtyArea; // Part of the surface to redraw before the next blit, when not all of it is
+
+    public StaticLayerCache(Image levelArt, List<Platform> platforms) {
+        this.levelArt = levelArt;
+        this.platforms = platforms;
+    }
+
+    // Call when the level (art or platforms) changes
+    public void setLevel(Image levelArt, List<Platform> platforms) {
+        this.levelArt = levelArt;
+        this.platforms = platforms;
+        invalidate();
+    }
+
+    public void invalidate() {
+        dirty = true;
+    }
+
+    // Call when a platform inside this area changed; only that part of the surface is redrawn
+    public void invalidate(int x, int y, int width, int height) {
+        Rectangle area = new Rectangle(x, y, width, height);
+        dirtyArea = dirtyArea == null ? area : dirtyArea.union(area);
+    }
+
+    // Marks where the platform was (or now is) drawn; invisible platforms aren't on the surface at all
+    public void invalidate(Platform platform) {
+        if (platform.isVisible()) {
+            invalidate(platform.getMinX(), platform.getY(), platform.getMaxX() - platform.getMinX(),
+                    platform.getHeight());
+        }
+    }
+
+    public void draw(Graphics g, int width, int height) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+        GraphicsConfiguration gc = ((Graphics2D) g).getDeviceConfiguration();
+
+        do {
+            if (surface == null || surfaceWidth != width || surfaceHeight != height) {
+                createSurface(gc, width, height); // First frame or the window was resized
+            }
+            int status = surface.validate(gc);
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                createSurface(gc, width, height); // Moved to another screen / display mode change
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                dirty = true; // Surface is back but its pixels are garbage
+            }
+
+            if (dirty) {
+                rebuild(null);
+            } else if (dirtyArea != null) {
+                rebuild(dirtyArea);
+            }
+            g.drawImage(surface, 0, 0, null);
+        } while (surface.contentsLost()); // Lost while we were drawing it, try again
+    }
+
+    private void createSurface(GraphicsConfiguration gc, int width, int height) {
+        if (surface != null) {
+            surface.flush();
+        }
+        surface = gc.createCompatibleVolatileImage(width, height, Transparency.TRANSLUCENT);
+        surfaceWidth = width;
+        surfaceHeight = height;
+        dirty = true;
+    }
+
+    // Redraws the whole surface, or only the given area of it
+    private void rebuild(Rectangle area) {
+        Graphics2D g2d = surface.createGraphics();
+        try {
+            if (area != null) {
+                g2d.clip(area);
+            }
+            // Clear to fully transparent so the parallax background shows through
+            g2d.setComposite(AlphaComposite.Clear);
+            g2d.fillRect(0, 0, surfaceWidth, surfaceHeight);
+            g2d.setComposite(AlphaComposite.SrcOver);
+
+            if (levelArt != null) {
+                g2d.drawImage(levelArt, 0, 0, surfaceWidth, surfaceHeight, null);
+            }
+            for (Platform platform : platforms) {
+                if (area == null || area.intersects(platform.getMinX(), platform.getY(),
+                        platform.getMaxX() - platform.getMinX(), platform.getHeight())) {
+                    platform.draw(g2d); // Skips invisible platforms itself
+                }
+            }
+        } finally {
+            g2d.dispose();
+        }
+        dirty = false;
+        dirtyArea = null;
+    }
+}
@@ -0,0 +1,156 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Runs the entity part of a world tick in fixed-size chunks on a ForkJoinPool. Each chunk owns a
+// disjoint index range of the EntityStore, its own grid query and its own contact buffer, so chunks
+// never share mutable state. The merge then concatenates the contact buffers in chunk order: the
+// result is the same bit for bit whatever the thread count or the order the chunks finished in.
+// One scheduler per World; it is not safe to tick two worlds through the same scheduler at once.
+public class TickScheduler {
+    public static final int CHUNK_SIZE = 512; // Entities per chunk; fixed so the split never depends on the core count
+
+    private final ForkJoinPool pool; // null: every chunk runs on the calling thread
+    private Chunk[] chunks = new Chunk[0];
+
+    // Inputs of the tick in progress, read by the chunks
+    private EntityStore entities;
+    private PlatformGrid grid;
+    private int worldWidth, worldHeight;
+    private int playerX, playerY, playerWidth, playerHeight;
+
+    // Merged result: entities touching the player this tick, in ascending index order
+    private int[] contacts = new int[64];
+    private int contactCount = 0;
+
+    public TickScheduler(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public static TickScheduler sequential() {
+        return new TickScheduler(null);
+    }
+
+    public static TickScheduler forThreads(int threads) {
+        return threads <= 1 ? sequential() : new TickScheduler(new ForkJoinPool(threads));
+    }
+
+    public void tick(EntityStore entities, PlatformGrid grid, int worldWidth, int worldHeight,
+                     int playerX, int playerY, int playerWidth, int playerHeight) {
+        this.entities = entities;
+        this.grid = grid;
+        this.worldWidth = worldWidth;
+        this.worldHeight = worldHeight;
+        this.playerX = playerX;
+        this.playerY = playerY;
+        this.playerWidth = playerWidth;
+        this.playerHeight = playerHeight;
+
+        int count = entities.size();
+        int chunkCount = (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunks.length < chunkCount) {
+            int previous = chunks.length;
+            chunks = Arrays.copyOf(chunks, chunkCount);
+            for (int i = previous; i < chunkCount; i++) {
+                chunks[i] = new Chunk();
+            }
+        }
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i].from = i * CHUNK_SIZE;
+            chunks[i].to = Math.min(count, (i + 1) * CHUNK_SIZE);
+        }
+
+        if (pool == null || chunkCount < 2) {
+            for (int i = 0; i < chunkCount; i++) {
+                runChunk(chunks[i]);
+            }
+        } else {
+            pool.invoke(new Split(0, chunkCount));
+        }
+
+        merge(chunkCount);
+        this.entities = null;
+        this.grid = null;
+    }
+
+    private void runChunk(Chunk chunk) {
+        entities.tick(chunk.from, chunk.to, grid, chunk.query, worldWidth, worldHeight);
+        chunk.contactCount = 0;
+        for (int i = chunk.from; i < chunk.to; i++) {
+            if (entities.overlaps(i, playerX, playerY, playerWidth, playerHeight)) {
+                if (chunk.contactCount == chunk.contacts.length) {
+                    chunk.contacts = Arrays.copyOf(chunk.contacts, chunk.contactCount * 2);
+                }
+                chunk.contacts[chunk.contactCount++] = i;
+            }
+        }
+    }
+
+    // Chunk order, not completion order
+    private void merge(int chunkCount) {
+        contactCount = 0;
+        for (int c = 0; c < chunkCount; c++) {
+            Chunk chunk = chunks[c];
+            if (contactCount + chunk.contactCount > contacts.length) {
+                contacts = Arrays.copyOf(contacts, Math.max(contacts.length * 2, contactCount + chunk.contactCount));
+            }
+            System.arraycopy(chunk.contacts, 0, contacts, contactCount, chunk.contactCount);
+            contactCount += chunk.contactCount;
+        }
+    }
+
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // The last tick's contacts are part of the world state (see World.saveState)
+    public void saveContacts(SnapshotImage image) {
+        image.putInt(contactCount);
+        image.putInts(contacts, contactCount);
+    }
+
+    public void loadContacts(SnapshotImage image) {
+        contactCount = image.getInt();
+        if (contactCount > contacts.length) {
+            contacts = new int[contactCount];
+        }
+        image.getInts(contacts, contactCount);
+    }
+
+    public int getContactCount() {
+        return contactCount;
+    }
+
+    public int getContact(int index) {
+        return contacts[index];
+    }
+
+    private static class Chunk {
+        private final PlatformGrid.Query query = new PlatformGrid.Query(); // Queries are per thread, so per chunk
+        private int[] contacts = new int[16];
+        private int contactCount = 0;
+        private int from, to;
+    }
+
+    // Halves the chunk range until a single chunk is left, letting the pool steal the other halves
+    private class Split extends RecursiveAction {
+        private final int from, to;
+
+        Split(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                runChunk(chunks[from]);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Split(from, middle), new Split(middle, to));
+            }
+        }
+    }
+}
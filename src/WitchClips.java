@@ -0,0 +1,24 @@
+// The Blue Witch's animation clips. Clip ids index the array returned by load().
+public class WitchClips {
+    public static final int IDLE = 0;
+    public static final int RUN = 1;
+    public static final int ATTACK = 2;
+    public static final int CHARGE = 3;
+    public static final int DEATH = 4;
+    public static final int TAKE_DAMAGE = 5;
+
+    public static final int SCALE = 7; // Sprite scale factor; collision boxes are scaled the same way
+
+    private WitchClips() {}
+
+    public static ClipInfo[] load() {
+        return new ClipInfo[] {
+                ClipInfo.probe("witch_idle", "assets/Blue_witch/B_witch_idle.png", 21, 39, true),
+                ClipInfo.probe("witch_run", "assets/Blue_witch/B_witch_run.png", 21, 41, true),
+                ClipInfo.probe("witch_attack", "assets/Blue_witch/B_witch_attack.png", 104, 45, true),
+                ClipInfo.probe("witch_charge", "assets/Blue_witch/B_witch_charge.png", 48, 48, true),
+                ClipInfo.probe("witch_death", "assets/Blue_witch/B_witch_death.png", 32, 40, true),
+                ClipInfo.probe("witch_take_damage", "assets/Blue_witch/B_witch_take_damage.png", 32, 48, true),
+        };
+    }
+}
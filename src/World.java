@@ -0,0 +1,532 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+// The simulation: level geometry, the player and their physics, with no dependency on a window or display.
+// Game renders a World; HeadlessRunner runs many of them side by side without any AWT at all.
+public class World {
+    // Fixed timestep. Velocities and gravity are in pixels per tick, so they were tuned for 60 ticks per second.
+    public static final int TICKS_PER_SECOND = 60;
+    public static final long TICK_NANOS = 1_000_000_000L / TICKS_PER_SECOND;
+    static final long ANIMATION_FRAME_NANOS = 1_000_000_000L / 6; // Change frame every 1/6 s
+
+    private int width, height; // World bounds used for edge and ground clamping
+
+    // Level
+    private final ArrayList<Platform> platforms = new ArrayList<>(); // List of platforms
+    private final PlatformGrid platformGrid = new PlatformGrid(256); // Broadphase over the platforms
+    private final PlatformGrid.Query collisionQuery = new PlatformGrid.Query(); // Reused every tick
+
+    // Player animation clips (frame sizes decide the collision box)
+    private final ClipInfo[] clips;
+    private final int scaleFactor;
+
+    // Player state
+    private int playerX, playerY;
+    private int gravity = 1;
+    private int velocityX = 0;
+    private int velocityY = 0;
+    private int clip = WitchClips.IDLE; // Clip id currently playing
+    private int currentFrame = 0;
+    private boolean flipHorizontal = false;
+    private boolean isAnimationLocked = false; // Locks the animation until it completes
+    private boolean isRunning = false; // Tracks whether the run animation is playing
+    private boolean isAttacking = false; // Tracks whether the player is attacking
+    private long animationTime = 0; // Time spent on the current animation frame
+
+    private double offsetX = 0; // Background scroll offset
+    private long tick = 0; // Ticks simulated so far
+    private long collisionNanos = 0; // Time handleCollisions() took in the last tick, for the profiler
+    private int obstacleHits = 0; // Times the player ran into an obstacle; a statistic, not part of the state
+
+    // Continuous collision for the player
+    private static final int MAX_SWEEP = 64; // Longest move swept in one go; longer ones are split into steps
+    private static final int MAX_SLIDES = 3; // Surfaces the player can stop at and slide along in one step
+    private static final int HIT_TOP = 1;
+    private static final int HIT_WALL = 2;
+
+    private static final int SNAPSHOT_VERSION = 1; // Layout written by saveState; bump when it changes
+
+    // Everything else that moves: walkers that patrol the platforms
+    private final EntityStore entities;
+    private TickScheduler scheduler = TickScheduler.sequential(); // Splits the entity tick into chunks, maybe across threads
+    private long spawnSeed = 0x2545F4914F6CDD1DL; // Xorshift state for spawn positions, so spawns are reproducible
+    private int spawnBatch = 1000; // Walkers added when SPAWN is pressed
+
+    // Spells, sparks and puffs
+    public static final int MAX_PARTICLES = 65536;
+    private final ParticleSystem particles = new ParticleSystem(MAX_PARTICLES);
+    private final PlatformGrid.Query particleQuery = new PlatformGrid.Query();
+
+    public World(ClipInfo[] clips, int scaleFactor, int width, int height, int spawnX, int spawnY) {
+        this.clips = clips;
+        this.scaleFactor = scaleFactor;
+        this.width = width;
+        this.height = height;
+        this.playerX = spawnX;
+        this.playerY = spawnY;
+        this.entities = new EntityStore(clips, scaleFactor, 1024);
+    }
+
+    public void setSize(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    public void setPlayerPosition(int x, int y) {
+        playerX = x;
+        playerY = y;
+    }
+
+    // Package-private so the benchmarks can give handleCollisions() a move to sweep
+    void setPlayerVelocity(int x, int y) {
+        velocityX = x;
+        velocityY = y;
+    }
+
+    public void addPlatforms(Collection<Platform> added) {
+        for (Platform platform : added) {
+            addPlatform(platform);
+        }
+    }
+
+    public void addPlatform(Platform platform) {
+        platforms.add(platform);
+        platformGrid.add(platform);
+    }
+
+    public void removePlatforms(Collection<Platform> removed) {
+        platforms.removeAll(new HashSet<>(removed)); // Platforms compare by identity
+        for (Platform platform : removed) {
+            platformGrid.remove(platform);
+        }
+    }
+
+    // Applies an edit to the level in one go: the platform at each index (ascending) is replaced by the
+    // matching replacement, or removed when that is null. Replacements keep their place in the list and
+    // only the changed platforms touch the grid.
+    public void replacePlatforms(int[] indices, Platform[] replacements) {
+        int write = -1; // Once something was removed, where the next kept platform moves to
+        int next = 0;
+        for (int k = 0; k < indices.length; k++) {
+            int index = indices[k];
+            if (write >= 0) {
+                for (int i = next; i < index; i++) {
+                    platforms.set(write++, platforms.get(i)); // Close the gap left by the removals so far
+                }
+            }
+            platformGrid.remove(platforms.get(index));
+            Platform replacement = replacements[k];
+            if (replacement != null) {
+                platformGrid.add(replacement);
+                platforms.set(write >= 0 ? write++ : index, replacement);
+            } else if (write < 0) {
+                write = index;
+            }
+            next = index + 1;
+        }
+        if (write >= 0) {
+            for (int i = next; i < platforms.size(); i++) {
+                platforms.set(write++, platforms.get(i));
+            }
+            platforms.subList(write, platforms.size()).clear();
+        }
+    }
+
+    public void setSpawnBatch(int spawnBatch) {
+        this.spawnBatch = spawnBatch;
+    }
+
+    // Drops walkers at random spots across the world; they fall onto the platforms below
+    public void spawnWalkers(int count) {
+        for (int i = 0; i < count; i++) {
+            int spawnX = (int) Math.floorMod(nextSpawnRandom(), (long) Math.max(1, width - 200));
+            int spawnY = (int) Math.floorMod(nextSpawnRandom(), (long) Math.max(1, height / 2));
+            int speed = 1 + (int) Math.floorMod(nextSpawnRandom(), 3L);
+            entities.spawn(spawnX, spawnY, WitchClips.RUN, (nextSpawnRandom() & 1) == 0 ? speed : -speed);
+        }
+    }
+
+    private long nextSpawnRandom() {
+        spawnSeed ^= spawnSeed << 13;
+        spawnSeed ^= spawnSeed >>> 7;
+        spawnSeed ^= spawnSeed << 17;
+        return spawnSeed;
+    }
+
+    // Advances the simulation by one fixed tick
+    public void tick(InputSnapshot input) {
+        tick++;
+        if (input.wasPressed(InputSnapshot.SPAWN)) {
+            spawnWalkers(spawnBatch); // Part of the input, so recordings replay it
+        }
+        if (input.wasPressed(InputSnapshot.PARTICLES)) {
+            // Stress test: a fountain of long lived sparks filling the pool
+            particles.burst(ParticleSystem.SPARK, playerX + getPlayerWidth() / 2f, playerY, MAX_PARTICLES, 14f, 180);
+        }
+        applyInput(input);
+
+        animationTime += TICK_NANOS;
+        while (animationTime >= ANIMATION_FRAME_NANOS) {
+            animationTime -= ANIMATION_FRAME_NANOS;
+
+            // Cycle through frames
+            currentFrame = (currentFrame + 1) % clips[clip].getTotalFrames();
+        }
+
+        offsetX -= 0.1; // Move the background left
+
+        // Update attack animation
+        if (isAttacking) {
+            if (currentFrame >= clips[clip].getTotalFrames() - 1) {
+                // Reset to idle animation after attack finishes
+                isAttacking = false;
+                isAnimationLocked = false; // Unlock the animation
+                isRunning = velocityX != 0;
+                setClip(velocityX == 0 ? WitchClips.IDLE : WitchClips.RUN);
+            }
+        }
+
+        if (playerX < 0) {
+            playerX += 5; // Prevent moving off the left edge
+        }
+        if (playerY < 0) {
+            playerY += 10; // Prevent moving off the top edge
+        }
+        if (playerX > width - getPlayerWidth()) {
+            playerX -= 5; // Prevent moving off the right edge
+        }
+        if (playerY > height - getPlayerHeight()) {
+            playerY -= 10; // Prevent moving off the bottom edge
+        }
+
+        velocityY += gravity; // Apply gravity
+
+        long collisionStart = System.nanoTime();
+        handleCollisions(); // Moves the player by its velocity
+        collisionNanos = System.nanoTime() - collisionStart;
+
+        // Prevent falling through the ground
+        if (playerY > height - getPlayerHeight()) {
+            playerY = height - getPlayerHeight();
+            velocityY = 0; // Reset velocity when on the ground
+        }
+
+        scheduler.tick(entities, platformGrid, width, height, playerX, playerY, getPlayerWidth(), getPlayerHeight());
+        particles.tick(platformGrid, particleQuery, width, height);
+    }
+
+    private void applyInput(InputSnapshot input) {
+        // Jumping with W or Space bar
+        if (input.wasPressed(InputSnapshot.JUMP) && velocityY == 0) { // Jump only when on the ground
+            velocityY = -25; // Set upward velocity for jumping
+        }
+
+        // Movement using A and D: follows the held keys, so releasing one while holding the other keeps moving
+        boolean left = input.isDown(InputSnapshot.LEFT);
+        boolean right = input.isDown(InputSnapshot.RIGHT);
+        if (left && !right) {
+            velocityX = -5; // Move left
+            flipHorizontal = true; // Flip sprite horizontally
+        } else if (right && !left) {
+            velocityX = 5; // Move right
+            flipHorizontal = false;
+        } else if (!left && !right) {
+            velocityX = 0; // Stop horizontal movement
+        }
+
+        // Switch between running and idle animation (the attack animation finishes first)
+        if (!isAttacking) {
+            if (velocityX != 0 && !isRunning) {
+                setClip(WitchClips.RUN);
+                isRunning = true; // Update the animation state
+            } else if (velocityX == 0 && isRunning) {
+                setClip(WitchClips.IDLE);
+                isRunning = false; // Update the animation state
+            }
+        }
+
+        // Move down with S
+        if (input.wasPressed(InputSnapshot.DOWN)) {
+            velocityY = 10; // Move down
+        } else if (input.wasReleased(InputSnapshot.DOWN)) {
+            velocityY = 0; // Stop downward movement
+        }
+
+        // Attack with J key
+        if (input.wasPressed(InputSnapshot.ATTACK) && !isAnimationLocked) {
+            isAttacking = true; // Start the attack animation
+            isAnimationLocked = true; // Lock the animation
+            setClip(WitchClips.ATTACK); // Switch to attack animation, starting at the first frame
+            castSpell();
+        }
+    }
+
+    // The attack throws a spell from the witch's hand, with a puff of cloud where it leaves
+    private void castSpell() {
+        float handX = flipHorizontal ? playerX : playerX + getPlayerWidth();
+        float handY = playerY + getPlayerHeight() * 0.4f;
+        particles.spawn(ParticleSystem.SPELL, handX, handY, flipHorizontal ? -14f : 14f, 0, 120);
+        particles.burst(ParticleSystem.PUFF, handX, handY, 12, 2f, 25);
+    }
+
+    // Package-private so the benchmarks can time collision on its own.
+    // Moves the player by its velocity with continuous collision: the move is swept against the platform
+    // tops and walls and stops at the first one in the way, so fast falls can't pass through thin platforms.
+    void handleCollisions() {
+        // Long moves are split so each sweep's broadphase query stays a few cells; walking and jumping take one step
+        int distance = Math.max(Math.abs(velocityX), Math.abs(velocityY));
+        int steps = Math.max(1, (distance + MAX_SWEEP - 1) / MAX_SWEEP);
+        int startVelocityX = velocityX;
+        int startVelocityY = velocityY;
+        boolean blockedX = false;
+        boolean blockedY = false;
+        for (int step = 1; step <= steps; step++) {
+            // Integer share of the move for this step, so the steps add up to exactly the velocity
+            int dx = blockedX ? 0 : startVelocityX * step / steps - startVelocityX * (step - 1) / steps;
+            int dy = blockedY ? 0 : startVelocityY * step / steps - startVelocityY * (step - 1) / steps;
+            int hit = sweep(dx, dy);
+            blockedX |= (hit & HIT_WALL) != 0;
+            blockedY |= (hit & HIT_TOP) != 0;
+        }
+
+        // Obstacles don't block, they hurt: checked where the player ends up
+        int width = getPlayerWidth();
+        int height = getPlayerHeight();
+        platformGrid.query(playerX, playerY, width, height, collisionQuery);
+        for (int i = 0; i < collisionQuery.size(); i++) {
+            Platform platform = collisionQuery.get(i);
+            if (platform.isObstacle() && platform.intersects(playerX, playerY, width, height)) {
+                // Handle collision with an obstacle (e.g., reset player position or reduce health)
+                obstacleHits++; // Counted, not printed: the headless and replay runs time this loop
+                sweep(-100, 0); // Push player back, without going through walls
+                return;
+            }
+        }
+    }
+
+    // Moves the player by (dx, dy), stopping at the earliest top or wall and sliding along it for the rest
+    // of the move. Returns which surfaces were hit.
+    private int sweep(int dx, int dy) {
+        int width = getPlayerWidth();
+        int height = getPlayerHeight();
+        int hits = 0;
+        for (int slide = 0; slide < MAX_SLIDES && (dx != 0 || dy != 0); slide++) {
+            // Only the platforms around the swept box can be hit
+            int startX = playerX;
+            int startY = playerY;
+            platformGrid.query(Math.min(startX, startX + dx), Math.min(startY, startY + dy),
+                    width + Math.abs(dx), height + Math.abs(dy), collisionQuery);
+
+            double first = Platform.NO_HIT;
+            int hit = 0;
+            for (int i = 0; i < collisionQuery.size(); i++) {
+                Platform platform = collisionQuery.get(i);
+                double top = platform.sweepTop(startX, startY, width, height, dx, dy);
+                if (top < first) {
+                    first = top;
+                    hit = HIT_TOP;
+                }
+                double wall = platform.sweepWalls(startX, startY, width, height, dx, dy);
+                if (wall < first) {
+                    first = wall;
+                    hit = HIT_WALL;
+                }
+            }
+            if (hit == 0) {
+                playerX += dx;
+                playerY += dy;
+                break;
+            }
+
+            // Move up to the contact, then carry on along the surface with what's left of the other axis
+            int movedX = (int) Math.round(dx * first);
+            int movedY = (int) Math.round(dy * first);
+            playerX = startX + movedX;
+            playerY = startY + movedY;
+            if (hit == HIT_TOP) {
+                velocityY = 0; // Landed on top of the platform
+                dx -= movedX;
+                dy = 0;
+            } else {
+                dx = 0; // Walls stop the sideways move but leave the input's velocity alone
+                dy -= movedY;
+            }
+            hits |= hit;
+        }
+        return hits;
+    }
+
+    private void setClip(int clip) {
+        this.clip = clip;
+        this.currentFrame = 0; // Reset to the first frame
+    }
+
+    // Hash of the whole simulation state, for comparing runs
+    public long checksum() {
+        long hash = 1125899906842597L;
+        hash = 31 * hash + tick;
+        hash = 31 * hash + playerX;
+        hash = 31 * hash + playerY;
+        hash = 31 * hash + velocityX;
+        hash = 31 * hash + velocityY;
+        hash = 31 * hash + clip;
+        hash = 31 * hash + currentFrame;
+        hash = 31 * hash + animationTime;
+        hash = 31 * hash + (flipHorizontal ? 1 : 0);
+        hash = 31 * hash + (isAnimationLocked ? 1 : 0);
+        hash = 31 * hash + (isRunning ? 1 : 0);
+        hash = 31 * hash + (isAttacking ? 1 : 0);
+        hash = 31 * hash + Double.doubleToLongBits(offsetX);
+        hash = 31 * hash + spawnSeed; // Mismatched seeds only show in positions at the next spawn otherwise
+        hash = 31 * hash + entities.checksum();
+        hash = 31 * hash + particles.checksum();
+        for (int i = 0; i < scheduler.getContactCount(); i++) {
+            hash = 31 * hash + scheduler.getContact(i);
+        }
+        return hash;
+    }
+
+    // Writes everything the tick changes into the image, for rewinding and save states (see SnapshotRing).
+    // The level and settings such as the spawn batch are not part of it. Particles are short-lived and
+    // nearly every word of them changes each tick, so the rewind history leaves them out (withParticles
+    // false): restoring such an image empties the particle pool.
+    public void saveState(SnapshotImage image, boolean withParticles) {
+        image.clear();
+        image.putInt(SNAPSHOT_VERSION);
+        image.putLong(tick);
+        image.putInt(width);
+        image.putInt(height);
+        image.putInt(playerX);
+        image.putInt(playerY);
+        image.putInt(velocityX);
+        image.putInt(velocityY);
+        image.putInt(clip);
+        image.putInt(currentFrame);
+        image.putInt((flipHorizontal ? 1 : 0) | (isAnimationLocked ? 2 : 0) | (isRunning ? 4 : 0) | (isAttacking ? 8 : 0));
+        image.putLong(animationTime);
+        image.putDouble(offsetX);
+        image.putLong(spawnSeed);
+        entities.saveState(image);
+        particles.saveState(image, withParticles);
+        scheduler.saveContacts(image);
+    }
+
+    public void loadState(SnapshotImage image) {
+        image.rewind();
+        int version = image.getInt();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IllegalStateException("Unsupported world snapshot version " + version);
+        }
+        tick = image.getLong();
+        width = image.getInt();
+        height = image.getInt();
+        playerX = image.getInt();
+        playerY = image.getInt();
+        velocityX = image.getInt();
+        velocityY = image.getInt();
+        clip = image.getInt();
+        currentFrame = image.getInt();
+        int flags = image.getInt();
+        flipHorizontal = (flags & 1) != 0;
+        isAnimationLocked = (flags & 2) != 0;
+        isRunning = (flags & 4) != 0;
+        isAttacking = (flags & 8) != 0;
+        animationTime = image.getLong();
+        offsetX = image.getDouble();
+        spawnSeed = image.getLong();
+        entities.loadState(image);
+        particles.loadState(image);
+        scheduler.loadContacts(image);
+    }
+
+    public void setScheduler(TickScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    // Entities touching the player after the last tick, in index order
+    public int getContactCount() {
+        return scheduler.getContactCount();
+    }
+
+    public int getContact(int index) {
+        return scheduler.getContact(index);
+    }
+
+    public ParticleSystem getParticles() {
+        return particles;
+    }
+
+    public EntityStore getEntities() {
+        return entities;
+    }
+
+    public List<Platform> getPlatforms() {
+        return platforms;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getPlayerX() {
+        return playerX;
+    }
+
+    public int getPlayerY() {
+        return playerY;
+    }
+
+    public int getPlayerWidth() {
+        return clips[clip].getFrameWidth() * scaleFactor; // Scaled width of the current frame
+    }
+
+    public int getPlayerHeight() {
+        return clips[clip].getFrameHeight() * scaleFactor; // Scaled height of the current frame
+    }
+
+    public int getVelocityX() {
+        return velocityX;
+    }
+
+    public int getVelocityY() {
+        return velocityY;
+    }
+
+    public int getClip() {
+        return clip;
+    }
+
+    public int getCurrentFrame() {
+        return currentFrame;
+    }
+
+    public boolean isFlippedHorizontal() {
+        return flipHorizontal;
+    }
+
+    public boolean isAttacking() {
+        return isAttacking;
+    }
+
+    public double getOffsetX() {
+        return offsetX;
+    }
+
+    public long getCollisionNanos() {
+        return collisionNanos;
+    }
+
+    public int getObstacleHits() {
+        return obstacleHits;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+}
@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Platforms that span chunks join the live level once while any chunk holding them is resident, and
+// identical platforms in the level file stay separate platforms
+class ChunkStreamerTest {
+    private static final String SLAB = "{\"x\": 100, \"y\": 900, \"width\": 4800, \"height\": 20,"
+            + " \"isObstacle\": false, \"visible\": false}";
+
+    @Test
+    void spanningPlatformsJoinOnceAndIdenticalOnesStayApart(@TempDir Path directory) throws Exception {
+        Path json = directory.resolve("level.json");
+        Files.writeString(json, "[" + SLAB + ", " + SLAB + "]"); // The same slab twice, over all ten chunks
+        Path chunks = directory.resolve("chunks");
+        LevelCompiler.compileChunks(json.toString(), chunks.toString(), 500, 1080);
+
+        IdentityHashMap<Platform, Boolean> live = new IdentityHashMap<>();
+        ChunkStreamer streamer = new ChunkStreamer(chunks.toString(), 1, new ChunkStreamer.Listener() {
+            @Override
+            public void platformsAdded(List<Platform> platforms) {
+                for (Platform platform : platforms) {
+                    assertTrue(live.put(platform, Boolean.TRUE) == null, "added twice");
+                }
+            }
+
+            @Override
+            public void platformsRemoved(List<Platform> platforms) {
+                for (Platform platform : platforms) {
+                    assertTrue(live.remove(platform) != null, "removed without being added");
+                }
+            }
+        });
+        try {
+            // Owner chunk 0 is far behind the camera and gets evicted under the 1-byte budget
+            streamer.preload(3000, 500);
+            for (int tick = 0; tick < 5; tick++) {
+                streamer.update(3000, 500);
+            }
+            assertEquals(2, live.size());
+            List<Platform> platforms = new ArrayList<>(live.keySet());
+            assertEquals(new PlatformKey(platforms.get(0)), new PlatformKey(platforms.get(1)));
+        } finally {
+            streamer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// A recording written to disk and played back must reproduce the recorded checksums, on one tick thread or several
+class InputRecordingTest {
+    private static final int TICKS = 6 * InputRecording.CHECKSUM_INTERVAL;
+
+    @Test
+    void replayMatchesTheRecording(@TempDir Path directory) throws Exception {
+        ClipInfo[] clips = WitchClips.load();
+        List<Platform> platforms = LevelIO.load("Level1.json");
+        InputRecording session = new InputRecording("Level1.json", 1920, 1080, 1700, 600, 300, 100);
+        World world = session.createWorld(clips);
+        world.addPlatforms(platforms);
+        InputSnapshot input = new InputSnapshot();
+        for (int t = 0; t < TICKS; t++) {
+            int down = (t / 45) % 2 == 0 ? InputSnapshot.RIGHT : InputSnapshot.LEFT;
+            int pressed = (t % 20 == 0 ? InputSnapshot.JUMP : 0) | (t % 50 == 10 ? InputSnapshot.ATTACK : 0)
+                    | (t == 100 ? InputSnapshot.SPAWN : 0);
+            input.set(down, pressed, 0);
+            world.tick(input);
+            session.record(input, world);
+        }
+        String path = directory.resolve("session.wrec").toString();
+        session.write(path);
+
+        InputRecording recording = InputRecording.read(path);
+        assertEquals(TICKS, recording.getTicks());
+        for (int threads : new int[]{1, 3}) {
+            World replay = recording.createWorld(clips);
+            replay.addPlatforms(platforms);
+            TickScheduler scheduler = TickScheduler.forThreads(threads);
+            replay.setScheduler(scheduler);
+            try {
+                for (int t = 0; t < TICKS; t++) {
+                    recording.apply(t, input, replay);
+                    replay.tick(input);
+                    Long expected = recording.checksumAfter(t + 1);
+                    if (expected != null) {
+                        assertEquals(expected.longValue(), replay.checksum(), threads + " threads, tick " + (t + 1));
+                    }
+                }
+            } finally {
+                scheduler.shutdown();
+            }
+            assertNotNull(recording.checksumAfter(TICKS));
+        }
+    }
+}
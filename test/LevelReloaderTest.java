@@ -0,0 +1,105 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// LevelReloader.diff applied with World.replacePlatforms / addPlatforms must give exactly the reloaded level
+class LevelReloaderTest {
+    @Test
+    void appliedDiffReproducesTheNewLevel() throws Exception {
+        World world = new World(WitchClips.load(), WitchClips.SCALE, 1920, 1080, 1700, 600);
+        List<Platform> level = randomLevel(new Random(1), 500);
+        world.addPlatforms(level);
+
+        Random random = new Random(42);
+        List<Platform> current = new ArrayList<>(level); // What the reloader thinks is live
+        for (int round = 0; round < 200; round++) {
+            List<Platform> next = edit(random, current);
+            LevelReloader.Diff diff = new LevelReloader.Diff();
+            List<Platform> expected = LevelReloader.diff(current, next, diff);
+
+            world.replacePlatforms(diff.getIndices(), diff.getReplacements());
+            world.addPlatforms(diff.getAdded());
+
+            List<Platform> live = world.getPlatforms();
+            assertEquals(expected.size(), live.size(), "round " + round);
+            for (int i = 0; i < expected.size(); i++) {
+                assertSame(expected.get(i), live.get(i), "round " + round + ", platform " + i);
+            }
+            assertEquals(counts(next), counts(live), "round " + round); // Same platforms, by value
+            current = expected;
+        }
+    }
+
+    @Test
+    void unchangedPlatformsKeepTheirInstance() {
+        List<Platform> previous = randomLevel(new Random(7), 50);
+        List<Platform> next = new ArrayList<>();
+        for (int i = previous.size() - 1; i >= 0; i--) {
+            Platform p = previous.get(i); // Same values, new instances, other order
+            next.add(new Platform(p.getX(), p.getY(), p.getWidth(), p.getHeight(), p.isObstacle(), p.isVisible(),
+                    p.hasLeftWall(), p.hasRightWall()));
+        }
+        LevelReloader.Diff diff = new LevelReloader.Diff();
+        List<Platform> result = LevelReloader.diff(previous, next, diff);
+
+        assertTrue(diff.isEmpty());
+        assertEquals(previous.size(), result.size());
+        for (int i = 0; i < previous.size(); i++) {
+            assertSame(previous.get(i), result.get(i));
+        }
+    }
+
+    private static List<Platform> randomLevel(Random random, int count) {
+        List<Platform> level = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            level.add(randomPlatform(random));
+        }
+        return level;
+    }
+
+    private static Platform randomPlatform(Random random) {
+        // Few distinct values, so duplicates and edits back to an earlier value come up
+        return new Platform(random.nextInt(40) * 50, random.nextInt(20) * 50, 50 + random.nextInt(4) * 50, 20,
+                random.nextInt(8) == 0, true, random.nextBoolean(), random.nextBoolean());
+    }
+
+    // The level file after an edit: some platforms removed, moved or added, and the file order shuffled a bit
+    private static List<Platform> edit(Random random, List<Platform> current) {
+        List<Platform> next = new ArrayList<>();
+        for (Platform platform : current) {
+            int roll = random.nextInt(100);
+            if (roll < 3) {
+                continue; // Removed
+            }
+            if (roll < 6) {
+                next.add(randomPlatform(random)); // Edited
+            } else {
+                next.add(new Platform(platform.getX(), platform.getY(), platform.getWidth(), platform.getHeight(),
+                        platform.isObstacle(), platform.isVisible(), platform.hasLeftWall(), platform.hasRightWall()));
+            }
+        }
+        for (int i = random.nextInt(8); i > 0; i--) {
+            next.add(random.nextInt(next.size() + 1), randomPlatform(random)); // Added
+        }
+        for (int i = random.nextInt(4); i > 0 && next.size() > 1; i--) {
+            int a = random.nextInt(next.size()), b = random.nextInt(next.size());
+            next.set(a, next.set(b, next.get(a))); // Moved in the file
+        }
+        return next;
+    }
+
+    private static HashMap<PlatformKey, Integer> counts(List<Platform> platforms) {
+        HashMap<PlatformKey, Integer> counts = new HashMap<>();
+        for (Platform platform : platforms) {
+            counts.merge(new PlatformKey(platform), 1, Integer::sum);
+        }
+        return counts;
+    }
+}